@@ -2,13 +2,21 @@ package github.ag777.common.tool.swing.base;
 
 import github.ag777.common.tool.swing.model.Threads;
 import github.ag777.common.tool.swing.model.UiProperties;
+import github.ag777.common.tool.swing.spring.thread.PriorityExecutor;
+import github.ag777.common.tool.swing.spring.thread.TaskPriority;
 import github.ag777.common.tool.swing.util.ui.DialogUtils;
 import github.ag777.common.tool.swing.util.ui.Toast;
 import github.ag777.common.tool.swing.view.component.loading.LoadingComponent;
+import github.ag777.common.tool.swing.view.component.output.ProcessRunner;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.swing.*;
+import java.io.IOException;
 import java.io.Serial;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 
 @Slf4j
@@ -20,6 +28,16 @@ public abstract class BasePanel extends LoadingComponent<JPanel> {
     @Serial
     private static final long serialVersionUID = -4818485273815570584L;
 
+    /**
+     * 正在运行的外部进程，移除组件时结束
+     */
+    private final Set<ProcessRunner> processRunners = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 还未结束的后台调用，移除组件时取消
+     */
+    private final Set<PresenterCall<?>> presenterCalls = ConcurrentHashMap.newKeySet();
+
     /**
      * 构造函数，用于初始化BasePanel
      *
@@ -51,8 +69,12 @@ public abstract class BasePanel extends LoadingComponent<JPanel> {
         if (mPresenter != null) {
             mPresenter.detachView(); // 如果Presenter实例存在，则解绑View，进行资源清理
         }
+        // 结束还在运行的外部进程
+        processRunners.forEach(ProcessRunner::cancel);
+        // 取消还未结束的后台调用，执行中的线程会被中断
+        presenterCalls.forEach(PresenterCall::cancel);
         // 强制清除loading状态
-        setLoading(false);
+        loadingState.reset();
     }
 
     /**
@@ -69,33 +91,141 @@ public abstract class BasePanel extends LoadingComponent<JPanel> {
      *
      * @param action   一个CallPresenter接口实例，用于调用业务演示层的方法
      * @param onCancel 当方法执行被中断时的回调，接收一个InterruptedException参数
+     * @return 调用句柄，可以取消、设置超时或在EDT上接续处理
      */
-    public void callPresenter(CallPresenter action, Consumer<InterruptedException> onCancel) {
+    public PresenterCall<Void> callPresenter(CallPresenter action, Consumer<InterruptedException> onCancel) {
+        return callPresenter(TaskPriority.NORMAL, action, onCancel);
+    }
+
+    /**
+     * 按指定优先级调用业务演示层对象的方法，并处理可能的异常
+     * <p>按钮点击等用户在等待的操作使用{@link TaskPriority#INTERACTIVE}，长时间的批量任务使用{@link TaskPriority#BULK}，
+     * 批量任务有并发上限(见ui.executor.bulk-limit)，不会占满线程导致交互操作排队
+     *
+     * @param priority 优先级
+     * @param action   一个CallPresenter接口实例，用于调用业务演示层的方法
+     * @param onCancel 当方法执行被中断时的回调，接收一个InterruptedException参数
+     * @return 调用句柄，可以取消、设置超时或在EDT上接续处理
+     */
+    public PresenterCall<Void> callPresenter(TaskPriority priority, CallPresenter action, Consumer<InterruptedException> onCancel) {
+        return supplyPresenter(priority, () -> {
+            action.call();
+            return null;
+        }, onCancel);
+    }
+
+    /**
+     * 调用业务演示层对象有返回值的方法，结果可以通过{@link PresenterCall#onSuccess(Consumer)}在EDT上处理
+     *
+     * @param action 业务调用
+     * @param <T>    结果类型
+     * @return 调用句柄
+     */
+    public <T> PresenterCall<T> supplyPresenter(SupplyPresenter<T> action) {
+        return supplyPresenter(TaskPriority.NORMAL, action, null);
+    }
+
+    /**
+     * 按指定优先级调用业务演示层对象有返回值的方法
+     * <p>调用期间显示加载状态；业务异常会记录日志并显示错误，超时也会显示错误；
+     * 在面板移除({@link #remove()})时还未结束的调用会被取消，执行中的线程会被中断
+     *
+     * @param priority 优先级
+     * @param action   业务调用
+     * @param onCancel 当方法执行被中断时的回调，接收一个InterruptedException参数
+     * @param <T>      结果类型
+     * @return 调用句柄，没有业务演示层对象时返回已取消的句柄
+     */
+    public <T> PresenterCall<T> supplyPresenter(TaskPriority priority, SupplyPresenter<T> action, Consumer<InterruptedException> onCancel) {
         // 获取当前业务演示层对象
         BasePresenter<?> mPresenter = getPresenter();
-        if (mPresenter != null) {
-            // 设置正在加载状态为true，表示开始进行某种操作
-            setLoading(true);
+        if (mPresenter == null) {
+            PresenterCall<T> call = new PresenterCall<>(null);
+            call.cancel();
+            return call;
+        }
+        // 设置正在加载状态为true，表示开始进行某种操作；调用结束、取消或超时时恢复
+        setLoading(true);
+        PresenterCall<T> call = new PresenterCall<>(c -> {
+            presenterCalls.remove(c);
+            setLoading(false);
+        });
+        presenterCalls.add(call);
+        call.onError(e -> {
+            if (e instanceof TimeoutException) {
+                showErr(e.getMessage());
+            }
+        });
+        Runnable task = () -> {
+            // 排队期间已被取消的不再执行
+            if (!call.start()) {
+                return;
+            }
+            try {
+                // 执行传入的业务演示层方法
+                call.complete(action.call());
+            } catch (InterruptedException e) {
+                // 当方法执行被中断时，记录日志并执行取消回调
+                log.debug("业务被中断");
+                call.fail(e);
+                if (onCancel != null) {
+                    onCancel.accept(e);
+                }
+            } catch (Exception e) {
+                if (call.isDone()) {
+                    // 已取消或超时，中断引起的异常不再提示
+                    log.debug("已结束的业务抛出异常: {}", e.toString());
+                } else {
+                    // 捕获其他异常，记录异常信息并显示错误
+                    log.debug(e.getMessage(), e);
+                    showErr(e.getMessage());
+                }
+                call.fail(e);
+            } catch (Error e) {
+                call.fail(e);
+                throw e;
+            } finally {
+                call.end();
+            }
+        };
+        PriorityExecutor executor = Threads.getPriorityExecutor();
+        // 排队期间被取消(包括面板移除时的取消)或超时的任务立即移出等待队列，不再占用排队名额
+        call.onAbort(() -> executor.remove(task));
+        try {
+            // 排队后线程池关闭导致不再执行时同样结束调用，释放加载状态
+            executor.execute(priority, task, call::fail);
+        } catch (RejectedExecutionException e) {
+            // 线程池繁忙，任务没有执行(拒绝已计数并记录日志)
+            call.fail(e);
+            showErr("后台任务过多，请稍后重试");
+        }
+        return call;
+    }
+
+    /**
+     * 在后台运行外部进程，stdout/stderr逐行输出到运行器绑定的输出区域
+     * <p>运行期间不显示加载状态，方便查看输出；组件被移除时进程会被结束
+     *
+     * @param runner 配置好的进程运行器
+     */
+    public void runProcess(ProcessRunner runner) {
+        processRunners.add(runner);
+        try {
             Threads.getBackgroundPool().execute(() -> {
                 try {
-                    // 执行传入的业务演示层方法
-                    action.call();
+                    runner.run();
                 } catch (InterruptedException e) {
-                    // 当方法执行被中断时，记录日志并执行取消回调
-                    log.debug("业务被中断");
-                    if (onCancel != null) {
-                        onCancel.accept(e);
-                    }
-                } catch (Exception e) {
-                    // 捕获其他异常，记录异常信息并显示错误
+                    log.debug("进程被取消");
+                } catch (IOException e) {
                     log.debug(e.getMessage(), e);
-                    showErr(e.getMessage());
+                    showErr("启动进程失败: " + e.getMessage());
                 } finally {
-                    // 无论结果如何，最后确保将加载状态设置为false
-                    setLoading(false);
+                    processRunners.remove(runner);
                 }
             });
-
+        } catch (RejectedExecutionException e) {
+            processRunners.remove(runner);
+            showErr("后台任务过多，请稍后重试");
         }
     }
 
@@ -179,4 +309,9 @@ public abstract class BasePanel extends LoadingComponent<JPanel> {
         void call() throws Exception;
     }
 
+    @FunctionalInterface
+    public interface SupplyPresenter<T> {
+        T call() throws Exception;
+    }
+
 }
@@ -0,0 +1,205 @@
+package github.ag777.common.tool.swing.base;
+
+import javax.swing.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 一次后台调用的句柄
+ * <p>
+ * 由{@link BasePanel#callPresenter}/{@link BasePanel#supplyPresenter}返回,可以取消(中断执行线程)、设置超时,
+ * 并在EDT上接续处理结果。面板移除时会取消所有未完成的调用,取消后的调用不会再执行EDT上的成功回调
+ *
+ * @param <T> 结果类型
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/19 上午2:40
+ */
+public class PresenterCall<T> {
+    /** 在EDT上执行回调 */
+    private static final Executor EDT = SwingUtilities::invokeLater;
+
+    private final CompletableFuture<T> future;
+    /** 结束时(完成、出错、取消或超时)只执行一次的回调 */
+    private final Consumer<PresenterCall<T>> onFinish;
+    private final AtomicBoolean finished;
+    /** 正在执行的线程,没有执行时为null,受this锁保护 */
+    private Thread runner;
+    /** 取消或超时时执行的回调(如把排队中的任务移出队列),受this锁保护 */
+    private Runnable abortHook;
+
+    PresenterCall(Consumer<PresenterCall<T>> onFinish) {
+        this.onFinish = onFinish;
+        future = new CompletableFuture<>();
+        finished = new AtomicBoolean(false);
+    }
+
+    /**
+     * 在后台线程中执行,已取消时直接跳过
+     *
+     * @return 是否开始执行
+     */
+    synchronized boolean start() {
+        if (future.isDone()) {
+            return false;
+        }
+        runner = Thread.currentThread();
+        return true;
+    }
+
+    /**
+     * 执行结束,清除执行线程,并清掉取消时可能留下的中断标记,避免影响线程池中的下一个任务
+     */
+    void end() {
+        synchronized (this) {
+            runner = null;
+        }
+        Thread.interrupted();
+    }
+
+    /**
+     * 设置取消或超时时执行的回调,应在提交任务之前设置
+     */
+    synchronized void onAbort(Runnable hook) {
+        abortHook = hook;
+    }
+
+    void complete(T value) {
+        future.complete(value);
+        finish();
+    }
+
+    void fail(Throwable e) {
+        future.completeExceptionally(e);
+        finish();
+    }
+
+    private void finish() {
+        if (finished.compareAndSet(false, true) && onFinish != null) {
+            onFinish.accept(this);
+        }
+    }
+
+    /**
+     * 取消调用: 排队中的移出队列不再执行,执行中的线程会被中断,可以在任意线程调用
+     *
+     * @return 本次是否取消成功,已结束的调用返回false
+     */
+    public boolean cancel() {
+        return abort(new CancellationException("调用已取消"));
+    }
+
+    private boolean abort(Throwable cause) {
+        boolean aborted = future.completeExceptionally(cause);
+        if (aborted) {
+            Runnable hook;
+            synchronized (this) {
+                if (runner != null) {
+                    runner.interrupt();
+                }
+                hook = abortHook;
+            }
+            if (hook != null) {
+                hook.run();
+            }
+            finish();
+        }
+        return aborted;
+    }
+
+    /**
+     * 设置超时,到时仍未结束则以{@link TimeoutException}结束并中断执行线程
+     *
+     * @param timeout 超时时间
+     * @param unit 时间单位
+     * @return 本对象
+     */
+    public PresenterCall<T> timeout(long timeout, TimeUnit unit) {
+        if (!future.isDone()) {
+            CompletableFuture.delayedExecutor(timeout, unit).execute(
+                    () -> abort(new TimeoutException("执行超时(" + unit.toMillis(timeout) + "ms)")));
+        }
+        return this;
+    }
+
+    /**
+     * 成功结束后在EDT上处理结果
+     *
+     * @param action 回调
+     * @return 本对象
+     */
+    public PresenterCall<T> onSuccess(Consumer<T> action) {
+        future.thenAcceptAsync(action, EDT);
+        return this;
+    }
+
+    /**
+     * 出错或超时后在EDT上处理异常,取消不算出错
+     *
+     * @param action 回调,参数为业务抛出的异常或{@link TimeoutException}
+     * @return 本对象
+     */
+    public PresenterCall<T> onError(Consumer<Throwable> action) {
+        future.whenCompleteAsync((value, e) -> {
+            Throwable cause = unwrap(e);
+            if (cause != null && !(cause instanceof CancellationException)) {
+                action.accept(cause);
+            }
+        }, EDT);
+        return this;
+    }
+
+    /**
+     * 无论结果如何,结束后在EDT上执行
+     *
+     * @param action 回调,参数为结果和异常(成功时异常为null)
+     * @return 本对象
+     */
+    public PresenterCall<T> whenDone(BiConsumer<T, Throwable> action) {
+        future.whenCompleteAsync((value, e) -> action.accept(value, unwrap(e)), EDT);
+        return this;
+    }
+
+    /**
+     * @return 是否已结束(完成、出错、取消或超时)
+     */
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * @return 是否已取消
+     */
+    public boolean isCancelled() {
+        return future.isCancelled();
+    }
+
+    /**
+     * @return 是否因超时结束
+     */
+    public boolean isTimedOut() {
+        if (!future.isCompletedExceptionally() || future.isCancelled()) {
+            return false;
+        }
+        return unwrap(future.exceptionNow()) instanceof TimeoutException;
+    }
+
+    /**
+     * 返回只读视图,取消或完成该视图不影响本调用,取消请使用{@link #cancel()}
+     *
+     * @return 结果的CompletableFuture
+     */
+    public CompletableFuture<T> toFuture() {
+        return future.copy();
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
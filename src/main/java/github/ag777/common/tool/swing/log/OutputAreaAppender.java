@@ -0,0 +1,334 @@
+package github.ag777.common.tool.swing.log;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.Layout;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import github.ag777.common.tool.swing.view.component.OutputArea;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 将日志输出到{@link OutputArea}的logback appender
+ * <p>
+ * 日志线程只负责格式化和路由,然后把结果写入有界无锁环形队列;EDT上的定时器每帧取一次队列,
+ * 按目标输出区域分组后每个区域只写入一次,因此EDT繁忙时不会拖慢打日志的线程。
+ * 队列满时按{@link OverflowPolicy}丢弃最早的日志或等待(EDT上打的日志始终按丢弃处理,避免死锁)
+ * <p>
+ * 路由规则: 配置了{@code key}时优先按MDC中该键的值精确匹配,否则按logger名称匹配最长的路由前缀
+ * (路由"com.foo"匹配logger"com.foo"和"com.foo.Bar",空串匹配所有logger)。
+ * 没有匹配到任何输出区域的日志直接忽略,不做格式化
+ * <pre>{@code
+ * <appender name="OUTPUT_AREA" class="github.ag777.common.tool.swing.log.OutputAreaAppender">
+ *     <pattern>%d{HH:mm:ss.SSS} %-5level %msg%n</pattern>
+ *     <key>taskId</key>
+ *     <capacity>8192</capacity>
+ *     <overflowPolicy>DROP_OLDEST</overflowPolicy>
+ * </appender>
+ * }</pre>
+ * 代码中通过{@link #register(String, OutputArea)}注册输出区域,通过{@link #find(String)}获取实例查看统计
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午5:10
+ */
+public class OutputAreaAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+    /** 默认队列容量 */
+    public static final int DEFAULT_CAPACITY = 8192;
+    /** 默认帧间隔(毫秒) */
+    public static final int DEFAULT_INTERVAL = 30;
+    /** 单帧最多处理的日志条数 */
+    private static final int MAX_EVENTS_PER_TICK = 20000;
+    /** 空闲多久后停止定时器(毫秒) */
+    private static final long IDLE_STOP_MILLIS = 1000;
+    /** 阻塞模式下等待队列腾出空间的间隔(纳秒) */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /** 路由 -> 输出区域,所有实例共享 */
+    private static final Map<String, OutputArea> ROUTES = new ConcurrentHashMap<>();
+    /** logger名称 -> 匹配结果的缓存,路由变化时清空 */
+    private static final Map<String, Object> RESOLVED = new ConcurrentHashMap<>();
+    /** 缓存中表示没有匹配的占位 */
+    private static final Object NO_ROUTE = new Object();
+
+    private String pattern;
+    private Layout<ILoggingEvent> layout;
+    private String key;
+    private int capacity = DEFAULT_CAPACITY;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+    private int interval = DEFAULT_INTERVAL;
+
+    private RingBuffer<Entry> ringBuffer;
+    private Timer timer;
+    private final LongAdder droppedCount = new LongAdder();
+    /** 只在EDT上写 */
+    private volatile long deliveredCount;
+    private long lastDeliverTime;
+
+    /**
+     * 注册输出区域,可以在任意线程调用
+     *
+     * @param route logger名称前缀或MDC值
+     * @param area 输出区域
+     */
+    public static void register(String route, OutputArea area) {
+        ROUTES.put(route, area);
+        RESOLVED.clear();
+    }
+
+    /**
+     * 取消指定路由
+     *
+     * @param route 路由
+     */
+    public static void unregister(String route) {
+        ROUTES.remove(route);
+        RESOLVED.clear();
+    }
+
+    /**
+     * 取消输出区域的所有路由,输出区域释放时调用
+     *
+     * @param area 输出区域
+     */
+    public static void unregister(OutputArea area) {
+        if (ROUTES.values().removeIf(value -> value == area)) {
+            RESOLVED.clear();
+        }
+    }
+
+    /**
+     * 按名称查找logback配置中的实例
+     *
+     * @param name appender名称
+     * @return 没有找到时返回null
+     */
+    public static OutputAreaAppender find(String name) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return null;
+        }
+        for (Logger logger : context.getLoggerList()) {
+            Appender<ILoggingEvent> appender = logger.getAppender(name);
+            if (appender instanceof OutputAreaAppender outputAreaAppender) {
+                return outputAreaAppender;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void start() {
+        if (layout == null) {
+            if (pattern == null) {
+                addError("No pattern or layout set for the appender named [" + name + "].");
+                return;
+            }
+            PatternLayout patternLayout = new PatternLayout();
+            patternLayout.setContext(getContext());
+            patternLayout.setPattern(pattern);
+            patternLayout.start();
+            layout = patternLayout;
+        }
+        ringBuffer = new RingBuffer<>(capacity);
+        timer = new Timer(interval, e -> tick());
+        timer.setCoalesce(true);
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (ROUTES.isEmpty()) {
+            return;
+        }
+        OutputArea area = resolve(event);
+        if (area == null) {
+            return;
+        }
+        Entry entry = new Entry(area, stripLineSeparator(layout.doLayout(event)));
+        if (!ringBuffer.offer(entry)) {
+            if (overflowPolicy == OverflowPolicy.BLOCK && !SwingUtilities.isEventDispatchThread()) {
+                awaitOffer(entry);
+            } else {
+                dropOldestAndOffer(entry);
+            }
+        }
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * @return 因队列满被丢弃的日志条数
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * @return 已写入输出区域的日志条数
+     */
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    /**
+     * @return 队列中等待输出的日志条数
+     */
+    public int getQueueDepth() {
+        return ringBuffer == null ? 0 : ringBuffer.size();
+    }
+
+    /**
+     * @param pattern 日志格式,和PatternLayout相同,未设置layout时使用
+     */
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public void setLayout(Layout<ILoggingEvent> layout) {
+        this.layout = layout;
+    }
+
+    /**
+     * @param key 用于路由的MDC键,不设置时只按logger名称路由
+     */
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    /**
+     * @param capacity 队列容量,向上取整为2的幂,启动后修改不生效
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * @param interval 帧间隔(毫秒),启动后修改不生效
+     */
+    public void setInterval(int interval) {
+        this.interval = interval;
+    }
+
+    private OutputArea resolve(ILoggingEvent event) {
+        if (key != null) {
+            String value = event.getMDCPropertyMap().get(key);
+            if (value != null) {
+                OutputArea area = ROUTES.get(value);
+                if (area != null) {
+                    return area;
+                }
+            }
+        }
+        Object resolved = RESOLVED.computeIfAbsent(event.getLoggerName(), OutputAreaAppender::resolveLogger);
+        return resolved == NO_ROUTE ? null : (OutputArea) resolved;
+    }
+
+    /**
+     * 按logger名称匹配最长的路由前缀
+     */
+    private static Object resolveLogger(String loggerName) {
+        String name = loggerName;
+        while (true) {
+            OutputArea area = ROUTES.get(name);
+            if (area != null) {
+                return area;
+            }
+            if (name.isEmpty()) {
+                return NO_ROUTE;
+            }
+            int dot = name.lastIndexOf('.');
+            name = dot < 0 ? "" : name.substring(0, dot);
+        }
+    }
+
+    private void awaitOffer(Entry entry) {
+        while (!ringBuffer.offer(entry)) {
+            if (!isStarted() || Thread.currentThread().isInterrupted()) {
+                droppedCount.increment();
+                return;
+            }
+            if (!timer.isRunning()) {
+                timer.start();
+            }
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+    }
+
+    private void dropOldestAndOffer(Entry entry) {
+        do {
+            if (ringBuffer.poll() != null) {
+                droppedCount.increment();
+            }
+        } while (!ringBuffer.offer(entry));
+    }
+
+    /**
+     * 每帧在EDT上执行一次: 取出队列中的日志,按输出区域分组后各写入一次
+     */
+    private void tick() {
+        Map<OutputArea, List<String>> batches = new IdentityHashMap<>();
+        int count = 0;
+        Entry entry;
+        while (count < MAX_EVENTS_PER_TICK && (entry = ringBuffer.poll()) != null) {
+            batches.computeIfAbsent(entry.area(), k -> new ArrayList<>()).add(entry.text());
+            count++;
+        }
+        long now = System.currentTimeMillis();
+        if (count > 0) {
+            batches.forEach(OutputArea::appendLines);
+            deliveredCount += count;
+            lastDeliverTime = now;
+        } else if (now - lastDeliverTime > IDLE_STOP_MILLIS) {
+            timer.stop();
+            // 停止后再检查一次,避免与生产者竞争导致日志滞留
+            if (!ringBuffer.isEmpty()) {
+                timer.start();
+            }
+        }
+    }
+
+    private static String stripLineSeparator(String text) {
+        int end = text.length();
+        while (end > 0 && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        return end == text.length() ? text : text.substring(0, end);
+    }
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /** 丢弃最早的日志,打日志的线程永不等待 */
+        DROP_OLDEST,
+        /** 等待EDT取走日志,不丢日志但EDT繁忙时会拖慢打日志的线程 */
+        BLOCK
+    }
+
+    private record Entry(OutputArea area, String text) {
+    }
+}
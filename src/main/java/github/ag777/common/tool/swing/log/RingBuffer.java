@@ -0,0 +1,112 @@
+package github.ag777.common.tool.swing.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形队列(多生产者,多消费者)
+ * <p>
+ * 每个槽位带一个序号,生产者和消费者各自通过CAS推进写/读位置,写满时{@link #offer(Object)}立即返回false,
+ * 由调用方决定丢弃最早的元素还是等待。允许多个消费者是为了让生产者在队列满时可以自己{@link #poll()}腾出位置
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午5:00
+ */
+public class RingBuffer<E> {
+    private final int mask;
+    private final AtomicReferenceArray<E> items;
+    /** 槽位序号: 等于写位置时可写,等于写位置+1时可读 */
+    private final AtomicLongArray sequences;
+    private final AtomicLong writePos;
+    private final AtomicLong readPos;
+
+    /**
+     * @param capacity 容量,向上取整为2的幂
+     */
+    public RingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("容量必须在1~2^30之间");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        items = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        writePos = new AtomicLong();
+        readPos = new AtomicLong();
+    }
+
+    /**
+     * 写入元素,可以在任意线程调用
+     *
+     * @param item 元素,不能为null
+     * @return 队列已满时返回false
+     */
+    public boolean offer(E item) {
+        long pos = writePos.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (writePos.compareAndSet(pos, pos + 1)) {
+                    items.set(index, item);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = writePos.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = writePos.get();
+            }
+        }
+    }
+
+    /**
+     * 取出最早的元素,可以在任意线程调用
+     *
+     * @return 队列为空时返回null
+     */
+    public E poll() {
+        long pos = readPos.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (readPos.compareAndSet(pos, pos + 1)) {
+                    E item = items.get(index);
+                    items.set(index, null);
+                    sequences.set(index, pos + mask + 1);
+                    return item;
+                }
+                pos = readPos.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = readPos.get();
+            }
+        }
+    }
+
+    /**
+     * @return 队列中的元素个数(并发写入时为近似值)
+     */
+    public int size() {
+        long size = writePos.get() - readPos.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return 实际容量
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+}
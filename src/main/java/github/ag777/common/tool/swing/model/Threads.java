@@ -1,8 +1,9 @@
 package github.ag777.common.tool.swing.model;
 
 import github.ag777.common.tool.swing.spring.SpringContextUtil;
+import github.ag777.common.tool.swing.spring.thread.PriorityExecutor;
 
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author ag777 <837915770@vip.qq.com>
@@ -10,7 +11,17 @@ import java.util.concurrent.ThreadPoolExecutor;
  */
 public class Threads {
 
-    public static ThreadPoolExecutor getBackgroundPool() {
-        return (ThreadPoolExecutor) SpringContextUtil.getBean("backgroundPool");
+    /**
+     * @return 后台任务执行器，虚拟线程或平台线程池，由ui.executor.mode配置
+     */
+    public static ExecutorService getBackgroundPool() {
+        return (ExecutorService) SpringContextUtil.getBean("backgroundPool");
+    }
+
+    /**
+     * @return 按优先级调度的执行器，任务最终在后台任务执行器中运行
+     */
+    public static PriorityExecutor getPriorityExecutor() {
+        return (PriorityExecutor) SpringContextUtil.getBean("priorityExecutor");
     }
 }
@@ -28,6 +28,8 @@ public class UiProperties {
     private UiConfig baseUiConfig;
     // 菜单项
     private Menu menu = new Menu();
+    // 后台任务执行配置
+    private Executor executor = new Executor();
 
     @PostConstruct
     public void init() {
@@ -82,6 +84,33 @@ public class UiProperties {
         private Font font;
     }
 
+    @Data
+    public static class Executor {
+        // 执行方式
+        private ExecutorMode mode = ExecutorMode.PLATFORM;
+        // 以下仅platform模式有效: 核心线程数，同时是优先级调度的总并发上限
+        private int coreSize = 10;
+        // 最大线程数，队列满后才会创建超过核心数的线程
+        private int maxSize = 10;
+        // 等待队列容量
+        private int queueCapacity = 200;
+        // 空闲线程存活时间(秒)
+        private int keepAliveSeconds = 30;
+        // 各优先级的并发上限，0表示不限(只受总并发限制)；默认只限制批量任务，交互和普通任务不排队
+        private int interactiveLimit = 0;
+        private int normalLimit = 0;
+        private int bulkLimit = 2;
+        // 优先级调度的等待队列容量
+        private int priorityQueueCapacity = 500;
+    }
+
+    public enum ExecutorMode {
+        // 每个任务一个虚拟线程
+        VIRTUAL,
+        // 平台线程池
+        PLATFORM
+    }
+
     @Data
     public static class Font {
         private int textSize=14;
@@ -0,0 +1,47 @@
+package github.ag777.common.tool.swing.spring.thread;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 计数并记录日志的拒绝策略
+ * <p>
+ * 与AbortPolicy一样抛出{@link RejectedExecutionException},调用方可以据此提示用户,
+ * 任务不会被无声丢弃;同时累计拒绝次数并输出警告日志
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/19 上午1:40
+ */
+@Slf4j
+public class CountingRejectedPolicy implements RejectedExecutionHandler {
+    private final String poolName;
+    private final AtomicLong rejectedCount;
+
+    /**
+     * @param poolName 线程池名称,用于日志
+     */
+    public CountingRejectedPolicy(String poolName) {
+        this.poolName = poolName;
+        rejectedCount = new AtomicLong();
+    }
+
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+        long count = rejectedCount.incrementAndGet();
+        log.warn("线程池[{}]拒绝任务, 累计拒绝: {}, 活动线程: {}/{}, 排队: {}, 已关闭: {}",
+                poolName, count, executor.getActiveCount(), executor.getMaximumPoolSize(),
+                executor.getQueue().size(), executor.isShutdown());
+        throw new RejectedExecutionException("线程池[" + poolName + "]繁忙, 任务被拒绝");
+    }
+
+    /**
+     * @return 累计拒绝次数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+}
@@ -1,11 +1,17 @@
 package github.ag777.common.tool.swing.spring.thread;
 
 import com.ag777.util.lang.thread.ThreadPoolUtils;
+import github.ag777.common.tool.swing.model.UiProperties;
 import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.SynchronousQueue;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -29,38 +35,88 @@ import java.util.concurrent.TimeUnit;
  * Ucpu=cpu使用率，0~1
  * W/C=等待时间与计算时间的比率
  * 实际需要通过压力测试才能得出最终数据,小公司请自行裁定
+ * <p>
+ * ------
+ * <p>
+ * 后台任务的执行方式由ui.executor.mode配置:
+ * virtual: 每个任务一个虚拟线程，适合以IO等待为主的业务(HTTP、数据库、文件)，不存在排队和拒绝；
+ * platform: 固定上限的平台线程池，使用有界队列，队列满后拒绝的任务会计数并记录日志，调用方会收到异常
+ * <p>
+ * 界面发起的任务通过{@link PriorityExecutor}按交互/普通/批量分类调度，批量任务有并发上限，不会饿死交互操作
  *
  * @author ag777 <837915770@vip.qq.com>
  * @version  2021/3/16 8:55
  */
+@Slf4j
 @Configuration
 public class PoolConfig {
 
-    private ThreadPoolExecutor threadPoolExecutor;
+    private ExecutorService backgroundPool;
+    private CountingRejectedPolicy rejectedPolicy;
 
     /**
+     * @param uiProperties ui配置，读取其中的executor配置
      * @return 后台任务线程池
      */
     @Bean("backgroundPool")
-    public ThreadPoolExecutor backgroundPool() {
-        threadPoolExecutor = new ThreadPoolExecutor(
-                1,
-                10,
-                30,
-                TimeUnit.SECONDS,
-                new SynchronousQueue<>(),
-                r -> new Thread(r, "pool-process"),
-                new ThreadPoolExecutor.DiscardOldestPolicy()
-        );
-        return threadPoolExecutor;
+    public ExecutorService backgroundPool(UiProperties uiProperties) {
+        UiProperties.Executor config = uiProperties.getExecutor();
+        if (config.getMode() == UiProperties.ExecutorMode.VIRTUAL) {
+            log.debug("后台任务使用虚拟线程");
+            backgroundPool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("pool-process-", 0).factory());
+        } else {
+            log.debug("后台任务使用平台线程池, 核心线程: {}, 最大线程: {}, 队列容量: {}",
+                    config.getCoreSize(), config.getMaxSize(), config.getQueueCapacity());
+            rejectedPolicy = new CountingRejectedPolicy("backgroundPool");
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    config.getCoreSize(),
+                    Math.max(config.getMaxSize(), config.getCoreSize()),
+                    config.getKeepAliveSeconds(),
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(config.getQueueCapacity()),
+                    Thread.ofPlatform().name("pool-process-", 0).factory(),
+                    rejectedPolicy
+            );
+            // 队列不满时不会创建超过核心数的线程，允许核心线程超时以便空闲时回收
+            executor.allowCoreThreadTimeOut(true);
+            backgroundPool = executor;
+        }
+        return backgroundPool;
+    }
+
+    /**
+     * @param backgroundPool 实际执行任务的后台线程池
+     * @param uiProperties ui配置，读取其中的executor配置
+     * @return 按优先级调度的执行器
+     */
+    @Bean("priorityExecutor")
+    public PriorityExecutor priorityExecutor(@Qualifier("backgroundPool") ExecutorService backgroundPool, UiProperties uiProperties) {
+        UiProperties.Executor config = uiProperties.getExecutor();
+        // 平台线程池模式下总并发不超过核心线程数: 线程池队列满之前不会创建超过核心数的线程，
+        // 超出核心数提交的任务会进入线程池自己的先进先出队列而失去优先级，只有不超过核心数时任务才只在调度器中排队
+        int maxConcurrency = config.getMode() == UiProperties.ExecutorMode.VIRTUAL
+                ? Integer.MAX_VALUE
+                : Math.max(config.getCoreSize(), 1);
+        return new PriorityExecutor(backgroundPool, Map.of(
+                TaskPriority.INTERACTIVE, config.getInteractiveLimit(),
+                TaskPriority.NORMAL, config.getNormalLimit(),
+                TaskPriority.BULK, config.getBulkLimit()
+        ), maxConcurrency, config.getPriorityQueueCapacity());
+    }
+
+    /**
+     * @return 后台任务被拒绝的次数，虚拟线程模式下为0
+     */
+    public long getRejectedCount() {
+        return rejectedPolicy == null ? 0 : rejectedPolicy.getRejectedCount();
     }
 
     @PreDestroy
     public void onDestroy() throws Exception {
-        if (threadPoolExecutor != null) {
+        if (backgroundPool != null) {
             // 优雅关闭线程池
-            threadPoolExecutor.shutdownNow();
-            ThreadPoolUtils.waitFor(threadPoolExecutor);
+            backgroundPool.shutdownNow();
+            ThreadPoolUtils.waitFor(backgroundPool);
         }
     }
 }
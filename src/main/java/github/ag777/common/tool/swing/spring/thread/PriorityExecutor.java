@@ -0,0 +1,284 @@
+package github.ag777.common.tool.swing.spring.thread;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 按优先级调度的执行器
+ * <p>
+ * 任务按{@link TaskPriority}分类排队,每类可以设置独立的并发上限,另有总并发上限;
+ * 有空闲名额时总是先取优先级高的类别,批量任务设置了上限后再多也只占用自己的名额,不会饿死交互操作。
+ * 实际执行交给底层执行器(后台线程池),这里只控制何时提交
+ * <p>
+ * 所有类别共用一个有界的等待队列,满了以后拒绝的任务会计数、记录日志并抛出{@link RejectedExecutionException}。
+ * 底层执行器暂时拒绝时任务放回队首,延迟{@value #RETRY_DELAY_MILLIS}毫秒后重新提交;
+ * 底层执行器已关闭时丢弃排队的任务,并通过提交时传入的回调通知每个被丢弃的任务,调用方可以借此释放占用的资源
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/19 上午2:10
+ */
+@Slf4j
+public class PriorityExecutor implements Executor {
+    /** 底层执行器拒绝后重新提交的延迟(毫秒) */
+    private static final long RETRY_DELAY_MILLIS = 100;
+
+    private final Executor delegate;
+    private final Map<TaskPriority, Integer> limits;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    /** 各类别的等待队列,受this锁保护 */
+    private final Map<TaskPriority, ArrayDeque<Entry>> queues;
+    /** 各类别正在执行的任务数,受this锁保护 */
+    private final Map<TaskPriority, Integer> running;
+    private final AtomicLong rejectedCount;
+    /** 是否已安排了延迟重试,避免重复安排 */
+    private final AtomicBoolean retryScheduled;
+    private int queued;
+    private int runningTotal;
+
+    /**
+     * @param delegate 实际执行任务的执行器
+     * @param limits 各类别的并发上限,缺省或不大于0的类别不限
+     * @param maxConcurrency 总并发上限,底层是有界线程池时应不超过其最大线程数
+     * @param queueCapacity 等待队列容量
+     */
+    public PriorityExecutor(Executor delegate, Map<TaskPriority, Integer> limits, int maxConcurrency, int queueCapacity) {
+        this.delegate = delegate;
+        this.limits = new EnumMap<>(TaskPriority.class);
+        limits.forEach((priority, limit) -> {
+            if (limit > 0) {
+                this.limits.put(priority, limit);
+            }
+        });
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        queues = new EnumMap<>(TaskPriority.class);
+        running = new EnumMap<>(TaskPriority.class);
+        for (TaskPriority priority : TaskPriority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+            running.put(priority, 0);
+        }
+        rejectedCount = new AtomicLong();
+        retryScheduled = new AtomicBoolean(false);
+    }
+
+    /**
+     * 以普通优先级执行
+     *
+     * @param task 任务
+     */
+    @Override
+    public void execute(Runnable task) {
+        execute(TaskPriority.NORMAL, task);
+    }
+
+    /**
+     * 按优先级排队执行
+     *
+     * @param priority 优先级
+     * @param task 任务
+     * @throws RejectedExecutionException 等待队列已满或底层执行器已关闭
+     */
+    public void execute(TaskPriority priority, Runnable task) {
+        execute(priority, task, null);
+    }
+
+    /**
+     * 按优先级排队执行
+     *
+     * @param priority 优先级
+     * @param task 任务
+     * @param onDiscard 任务已经排队、但因底层执行器关闭而不会再执行时调用(在调度线程中),为null时只记录日志
+     * @throws RejectedExecutionException 等待队列已满或底层执行器已关闭
+     */
+    public void execute(TaskPriority priority, Runnable task, Consumer<RejectedExecutionException> onDiscard) {
+        if (isDelegateShutdown()) {
+            throw new RejectedExecutionException("后台线程池已关闭, " + priority + "任务被拒绝");
+        }
+        synchronized (this) {
+            if (queued >= queueCapacity) {
+                long count = rejectedCount.incrementAndGet();
+                log.warn("优先级调度拒绝{}任务, 累计拒绝: {}, 排队: {}, 执行中: {}", priority, count, queued, runningTotal);
+                throw new RejectedExecutionException("后台任务排队已满, " + priority + "任务被拒绝");
+            }
+            queues.get(priority).addLast(new Entry(task, onDiscard));
+            queued++;
+        }
+        dispatch();
+    }
+
+    /**
+     * 把还在排队的任务移出等待队列,用于排队期间取消的任务,释放的排队名额可以立即被新任务使用
+     *
+     * @param task 提交时传入的任务
+     * @return 是否移除,已提交给底层执行器或不在队列中时返回false
+     */
+    public synchronized boolean remove(Runnable task) {
+        for (ArrayDeque<Entry> queue : queues.values()) {
+            Iterator<Entry> it = queue.iterator();
+            while (it.hasNext()) {
+                if (it.next().task == task) {
+                    it.remove();
+                    queued--;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按优先级从高到低,把有名额的排队任务提交给底层执行器
+     */
+    private void dispatch() {
+        while (true) {
+            TaskPriority priority;
+            Entry entry;
+            synchronized (this) {
+                priority = nextPriority();
+                if (priority == null) {
+                    return;
+                }
+                entry = queues.get(priority).pollFirst();
+                queued--;
+                running.merge(priority, 1, Integer::sum);
+                runningTotal++;
+            }
+            TaskPriority p = priority;
+            try {
+                delegate.execute(() -> {
+                    try {
+                        entry.task.run();
+                    } finally {
+                        release(p);
+                        dispatch();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                release(p);
+                if (isDelegateShutdown()) {
+                    // 底层执行器已关闭,排队的任务不会再有机会执行,逐个通知调用方
+                    List<Entry> dropped = discardQueued();
+                    dropped.add(0, entry);
+                    log.warn("底层执行器已关闭, 丢弃{}个排队任务", dropped.size());
+                    for (Entry d : dropped) {
+                        d.discard(e);
+                    }
+                    return;
+                }
+                // 底层执行器暂时已满: 放回队首,延迟后重试,不依赖其它任务结束来触发
+                synchronized (this) {
+                    queues.get(p).addFirst(entry);
+                    queued++;
+                }
+                log.warn("底层执行器拒绝{}任务, {}ms后重新提交", p, RETRY_DELAY_MILLIS, e);
+                scheduleRetry();
+                return;
+            }
+        }
+    }
+
+    private void scheduleRetry() {
+        if (retryScheduled.compareAndSet(false, true)) {
+            CompletableFuture.delayedExecutor(RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS).execute(() -> {
+                retryScheduled.set(false);
+                dispatch();
+            });
+        }
+    }
+
+    private boolean isDelegateShutdown() {
+        return delegate instanceof ExecutorService service && service.isShutdown();
+    }
+
+    /**
+     * 清空所有等待队列
+     *
+     * @return 丢弃的任务
+     */
+    private synchronized List<Entry> discardQueued() {
+        List<Entry> dropped = new ArrayList<>(queued);
+        queues.values().forEach(queue -> {
+            dropped.addAll(queue);
+            queue.clear();
+        });
+        queued = 0;
+        return dropped;
+    }
+
+    /**
+     * @return 下一个可以执行的类别,没有时为null
+     */
+    private TaskPriority nextPriority() {
+        if (runningTotal >= maxConcurrency) {
+            return null;
+        }
+        for (TaskPriority priority : TaskPriority.values()) {
+            if (!queues.get(priority).isEmpty() && running.get(priority) < limits.getOrDefault(priority, Integer.MAX_VALUE)) {
+                return priority;
+            }
+        }
+        return null;
+    }
+
+    private synchronized void release(TaskPriority priority) {
+        running.merge(priority, -1, Integer::sum);
+        runningTotal--;
+    }
+
+    /**
+     * @param priority 优先级
+     * @return 该类别正在执行的任务数
+     */
+    public synchronized int getRunning(TaskPriority priority) {
+        return running.get(priority);
+    }
+
+    /**
+     * @param priority 优先级
+     * @return 该类别排队中的任务数
+     */
+    public synchronized int getQueued(TaskPriority priority) {
+        return queues.get(priority).size();
+    }
+
+    /**
+     * @return 因排队已满被拒绝的次数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * 排队中的任务
+     *
+     * @param task 任务
+     * @param onDiscard 被丢弃时的回调,可以为null
+     */
+    private record Entry(Runnable task, Consumer<RejectedExecutionException> onDiscard) {
+        void discard(RejectedExecutionException e) {
+            if (onDiscard == null) {
+                return;
+            }
+            try {
+                onDiscard.accept(e);
+            } catch (RuntimeException ex) {
+                log.warn("处理被丢弃的任务出错", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package github.ag777.common.tool.swing.spring.thread;
+
+/**
+ * 后台任务优先级,按声明顺序从高到低
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/19 上午2:10
+ */
+public enum TaskPriority {
+    /** 交互操作,如按钮点击,用户在等待结果 */
+    INTERACTIVE,
+    /** 普通任务 */
+    NORMAL,
+    /** 批量任务,如长时间的导入导出 */
+    BULK
+}
@@ -0,0 +1,93 @@
+package github.ag777.common.tool.swing.util.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 全局动画时钟
+ * <p>
+ * 所有动画组件共用一个{@link Timer},每{@value #FRAME_INTERVAL}毫秒在EDT上依次回调订阅者,
+ * 没有订阅者时定时器停止。组件应只在显示时订阅(见{@link #whileShowing(Component, Runnable)}),
+ * 隐藏或移出界面的组件不会再产生任何定时事件
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/19 上午12:10
+ */
+public final class AnimationClock {
+    /** 帧间隔(毫秒) */
+    public static final int FRAME_INTERVAL = 100;
+
+    /** 订阅者,订阅和取消远比回调少,使用写时复制列表 */
+    private static final CopyOnWriteArrayList<Runnable> SUBSCRIBERS = new CopyOnWriteArrayList<>();
+    private static final Timer TIMER = new Timer(FRAME_INTERVAL, e -> tick());
+
+    static {
+        TIMER.setCoalesce(true);
+    }
+
+    private AnimationClock() {
+    }
+
+    /**
+     * 订阅时钟,重复订阅同一个回调无效,可以在任意线程调用
+     *
+     * @param listener 每帧在EDT上执行的回调
+     */
+    public static void subscribe(Runnable listener) {
+        if (SUBSCRIBERS.addIfAbsent(listener)) {
+            // Timer.start内部加锁,可以在任意线程调用
+            TIMER.start();
+        }
+    }
+
+    /**
+     * 取消订阅,最后一个订阅者取消后定时器停止,可以在任意线程调用
+     *
+     * @param listener 订阅时传入的回调
+     */
+    public static void unsubscribe(Runnable listener) {
+        if (SUBSCRIBERS.remove(listener) && SUBSCRIBERS.isEmpty()) {
+            TIMER.stop();
+            if (!SUBSCRIBERS.isEmpty()) {
+                // 停止的同时有新的订阅,重新启动
+                TIMER.start();
+            }
+        }
+    }
+
+    /**
+     * 组件显示时订阅,隐藏或从界面移除时取消订阅
+     *
+     * @param component 组件
+     * @param listener 每帧在EDT上执行的回调
+     */
+    public static void whileShowing(Component component, Runnable listener) {
+        component.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                if (component.isShowing()) {
+                    subscribe(listener);
+                } else {
+                    unsubscribe(listener);
+                }
+            }
+        });
+        if (component.isShowing()) {
+            subscribe(listener);
+        }
+    }
+
+    /**
+     * @return 当前订阅者数量
+     */
+    public static int getSubscriberCount() {
+        return SUBSCRIBERS.size();
+    }
+
+    private static void tick() {
+        for (Runnable listener : SUBSCRIBERS) {
+            listener.run();
+        }
+    }
+}
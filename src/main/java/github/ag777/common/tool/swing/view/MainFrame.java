@@ -4,6 +4,7 @@ package github.ag777.common.tool.swing.view;
 import github.ag777.common.tool.swing.base.BasePanel;
 import github.ag777.common.tool.swing.model.UiProperties;
 import github.ag777.common.tool.swing.view.component.loading.LoadingFrame;
+import github.ag777.common.tool.swing.view.component.loading.LoadingTask;
 import github.ag777.common.tool.swing.view.interf.MainView;
 
 import javax.swing.*;
@@ -48,7 +49,7 @@ public class MainFrame extends LoadingFrame implements MainView {
 
 	@Override
 	public void switchView(BasePanel panel) {
-		setLoading(true);
+		LoadingTask task = beginLoading("切换页面");
 		try {
 			if(curPanel!=null) {
 				curPanel.remove();
@@ -61,7 +62,7 @@ public class MainFrame extends LoadingFrame implements MainView {
 			validate();
 			repaint();
 		} finally {
-			setLoading(false);
+			task.close();
 		}
 	}
 	
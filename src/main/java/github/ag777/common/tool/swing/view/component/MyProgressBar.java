@@ -1,6 +1,8 @@
 package github.ag777.common.tool.swing.view.component;
 
 import github.ag777.common.tool.swing.model.Theme;
+import github.ag777.common.tool.swing.view.component.progress.ProgressHandle;
+import github.ag777.common.tool.swing.view.component.progress.RateEstimator;
 import lombok.Setter;
 
 import javax.swing.*;
@@ -8,13 +10,39 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 /**
+ * 进度条
+ * <p>
+ * 后台线程高频更新进度时使用{@link #bind(ProgressHandle)}: 工作线程只修改句柄中的原子计数,
+ * EDT上的定时器每{@value #SAMPLE_INTERVAL}毫秒采样一次,显示值或状态变化时才更新进度条和文字。
+ * {@link #updateProgress(int, int, int, Status)}等直接修改的方法只能在EDT上调用
+ * <p>
+ * 绑定句柄时总量和完成量都是long,超过int范围时进度条内部按比例换算刻度;
+ * 每次采样用指数加权移动平均(时间常数{@value #RATE_TIME_CONSTANT}毫秒)估算速度和剩余时间,
+ * 通过{@link ProgressInfo}提供给文字格式化器,默认在鼠标悬停时显示
+ * <p>
+ * 句柄有子任务时进度条显示加权汇总的总体进度,剩余时间取最慢子任务的剩余时间;
+ * 每个子任务单独估算速度,鼠标悬停时的提示中列出各子任务的进度、速度和剩余时间,并标出最慢的一个
+ *
  * @author ag777 <837915770@vip.qq.com>
  * @version 2024/9/29 上午10:00
  */
 public class MyProgressBar extends JProgressBar {
+    /** 采样间隔(毫秒) */
+    public static final int SAMPLE_INTERVAL = 100;
+    /** 连续多少次采样没有变化后停止定时器 */
+    private static final int IDLE_SAMPLES = 20;
+    /** 总量超过int范围时进度条使用的刻度数 */
+    private static final int SCALE = 10000;
+    /** 速度估算的时间常数(毫秒),越大越平滑 */
+    private static final long RATE_TIME_CONSTANT = 3000;
+
     @Setter
     private Function<ProgressInfo, String> textFormatter;
     @Setter
@@ -23,9 +51,36 @@ public class MyProgressBar extends JProgressBar {
     private volatile boolean hover;
     private volatile Status status;
 
+    /** 绑定的进度句柄,没有时为null */
+    private volatile ProgressHandle handle;
+    /** 采样定时器 */
+    private final Timer sampler;
+    /** 上次采样的完成量,只在EDT上访问 */
+    private long sampledDone = -1;
+    /** 上次采样的总量,只在EDT上访问 */
+    private long sampledTotal;
+    /** 上次采样的完成比例,只在EDT上访问 */
+    private double sampledFraction;
+    /** 上次采样的剩余时间(毫秒),未知时为-1,只在EDT上访问 */
+    private long sampledEta;
+    /** 上次采样的各子任务信息,没有子任务时为空,只在EDT上访问 */
+    private List<ChildInfo> sampledChildren;
+    /** 总体速度估算,只在EDT上访问 */
+    private final RateEstimator rate;
+    /** 各子任务的速度估算,只在EDT上访问 */
+    private final Map<ProgressHandle, RateEstimator> childRates;
+    /** 连续没有变化的采样次数,只在EDT上访问 */
+    private int unchangedSamples;
+
     public MyProgressBar() {
         super();
         status = Status.RUNNING;
+        rate = new RateEstimator(RATE_TIME_CONSTANT);
+        childRates = new IdentityHashMap<>();
+        sampledEta = -1;
+        sampledChildren = List.of();
+        sampler = new Timer(SAMPLE_INTERVAL, e -> sample());
+        sampler.setCoalesce(true);
         setStringPainted(true);
         setHeight(20);
         colorGenerator = info->
@@ -41,7 +96,14 @@ public class MyProgressBar extends JProgressBar {
         DecimalFormat percentFormat = new DecimalFormat("0%");
         setTextFormatter((info)-> {
             if (info.hover()) {
-                return info.value()+"/"+info.max();
+                StringBuilder text = new StringBuilder().append(info.value()).append('/').append(info.max());
+                if (info.rate() > 0) {
+                    text.append("  ").append(formatRate(info.rate())).append("/s");
+                }
+                if (info.etaMillis() >= 0) {
+                    text.append("  剩余").append(formatDuration(info.etaMillis()));
+                }
+                return text.toString();
             } else {
                 return percentFormat.format(info.progress());
             }
@@ -53,6 +115,7 @@ public class MyProgressBar extends JProgressBar {
             public void mouseEntered(MouseEvent e) {
                 hover=true;
                 refreshText();
+                refreshToolTip();
             }
 
             @Override
@@ -98,8 +161,8 @@ public class MyProgressBar extends JProgressBar {
     /**
      * 更新进度条的进度范围和当前值
      * 此方法用于动态更新一个进度条的最小值、最大值和当前值
-     * 它首先检查当前的最小值和最大值是否与传入的参数相同，如果不同，则进行更新
-     * 最后，它更新进度条的当前值为传入的value参数
+     * 范围和当前值一次性写入模型，只触发一次变更事件
+     * 只能在EDT上调用，后台线程请使用{@link #bind(ProgressHandle)}
      *
      * @param value 进度条的当前值，表示进度的百分比
      * @param min 进度条的最小值，进度条的下限
@@ -107,20 +170,271 @@ public class MyProgressBar extends JProgressBar {
      * @param status 进度条的状态，可以是正在运行、已完成、出错等
      */
     public void updateProgress(int value, int min, int max, Status status) {
-        // 检查并更新最小值
-        if (getMinimum()!=min) {
-            setMinimum(min);
-        }
-        // 检查并更新最大值
-        if (getMaximum()!=max) {
-            setMaximum(max);
-        }
-        // 更新当前值
-        setValue(value);
+        // 一次性更新范围和当前值,值没有变化时模型不会触发事件
+        getModel().setRangeProperties(value, 0, min, max, false);
         // 更新状态
         setStatus(status);
     }
 
+    /**
+     * 创建一个进度句柄并绑定
+     *
+     * @param total 总量,小于等于0表示未知
+     * @return 进度句柄,可以在任意线程修改
+     */
+    public ProgressHandle bind(long total) {
+        return bind(new ProgressHandle(total));
+    }
+
+    /**
+     * 绑定进度句柄,之后进度条显示由定时采样驱动,可以在任意线程调用
+     *
+     * @param handle 进度句柄,替换之前绑定的句柄
+     * @return 传入的句柄
+     */
+    public ProgressHandle bind(ProgressHandle handle) {
+        ProgressHandle old = this.handle;
+        if (old != null) {
+            old.setIdle(false, null);
+        }
+        this.handle = handle;
+        handle.setIdle(false, null);
+        SwingUtilities.invokeLater(() -> {
+            if (this.handle == handle) {
+                sampledDone = -1;
+                rate.reset();
+                childRates.clear();
+                unchangedSamples = 0;
+                sample();
+                sampler.start();
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * 解除绑定,进度条保留最后一次采样的显示,可以在任意线程调用
+     */
+    public void unbind() {
+        ProgressHandle old = handle;
+        handle = null;
+        if (old != null) {
+            old.setIdle(false, null);
+        }
+        // Timer.stop内部加锁,可以在任意线程调用
+        sampler.stop();
+    }
+
+    /**
+     * @return 绑定的进度句柄,没有时为null
+     */
+    public ProgressHandle getHandle() {
+        return handle;
+    }
+
+    /**
+     * 在EDT上采样一次绑定的句柄,显示值、状态或悬停文字有变化时才更新
+     */
+    private void sample() {
+        ProgressHandle h = handle;
+        if (h == null) {
+            sampler.stop();
+            return;
+        }
+        long now = System.nanoTime();
+        // 有子任务时在这里才汇总,工作线程只修改各自子句柄的计数
+        long done = h.getDone();
+        long total = h.getTotal();
+        double fraction = h.getFraction();
+        Status newStatus = h.getStatus();
+        rate.update(done, now);
+        long previousDone = sampledDone;
+        // 先记录采样值,更新进度条触发的事件中getProgressInfo取到的就是本次采样
+        sampledDone = done;
+        sampledTotal = total;
+        sampledFraction = fraction;
+        if (h.hasChildren()) {
+            sampleChildren(h, now);
+        } else {
+            sampledChildren = List.of();
+            sampledEta = total > 0 ? rate.eta(total - done) : -1;
+        }
+        int max;
+        int value;
+        if (h.hasChildren()) {
+            // 子任务的单位可能不同,按加权比例显示
+            max = SCALE;
+            value = (int) (fraction * SCALE);
+        } else if (total <= 0) {
+            max = 0;
+            value = 0;
+        } else if (total <= Integer.MAX_VALUE) {
+            max = (int) total;
+            value = (int) Math.min(Math.max(done, 0), total);
+        } else {
+            max = SCALE;
+            value = (int) (Math.min(Math.max((double) done / total, 0), 1) * SCALE);
+        }
+        boolean changed = value != getValue() || max != getMaximum() || getMinimum() != 0 || newStatus != status;
+        if (changed) {
+            updateProgress(value, 0, max, newStatus);
+        } else if (hover) {
+            // 悬停时显示的是具体数值和速度,显示值不变也要刷新文字
+            refreshText();
+        }
+        if (hover) {
+            refreshToolTip();
+        }
+        if (changed || done != previousDone) {
+            unchangedSamples = 0;
+        } else if (++unchangedSamples >= IDLE_SAMPLES) {
+            // 长时间没有变化: 停止定时器,下次修改句柄时再唤醒
+            h.setIdle(true, sampler::start);
+            sampler.stop();
+            unchangedSamples = 0;
+            // 停滞时不再显示过时的速度和剩余时间
+            rate.stall();
+            childRates.values().forEach(RateEstimator::stall);
+            sampledEta = -1;
+            if (h.getDone() != done || h.getStatus() != newStatus || h.getTotal() != total) {
+                // 停止前后的修改可能没有触发唤醒,再检查一次
+                h.setIdle(false, null);
+                sampler.start();
+            }
+        }
+    }
+
+    /**
+     * 采样各子任务并估算各自的速度,总体剩余时间取最慢子任务的剩余时间,有子任务速度未知时总体也未知
+     */
+    private void sampleChildren(ProgressHandle h, long now) {
+        List<ProgressHandle> children = h.getChildren();
+        List<ChildInfo> infos = new ArrayList<>(children.size());
+        long eta = 0;
+        for (ProgressHandle child : children) {
+            long childDone = child.getDone();
+            long childTotal = child.getTotal();
+            Status childStatus = child.getStatus();
+            RateEstimator childRate = childRates.computeIfAbsent(child, k -> new RateEstimator(RATE_TIME_CONSTANT));
+            childRate.update(childDone, now);
+            long childEta;
+            if (childStatus != Status.RUNNING) {
+                childEta = childStatus == Status.COMPLETE ? 0 : -1;
+            } else {
+                childEta = childTotal > 0 ? childRate.eta(childTotal - childDone) : -1;
+            }
+            if (childStatus == Status.RUNNING && (childEta < 0 || eta < 0)) {
+                eta = -1;
+            } else if (eta >= 0) {
+                eta = Math.max(eta, childEta);
+            }
+            infos.add(new ChildInfo(child.getName(), child.getWeight(), childTotal, childDone,
+                    child.getFraction(), childStatus, childRate.getRate(), childEta));
+        }
+        sampledChildren = infos;
+        sampledEta = eta;
+        if (childRates.size() > children.size()) {
+            // 句柄的子任务只增不减,这里只会在换绑句柄后残留旧的估算
+            childRates.keySet().retainAll(children);
+        }
+    }
+
+    /**
+     * 悬停时用提示列出各子任务,没有子任务时移除提示
+     */
+    private void refreshToolTip() {
+        List<ChildInfo> children = sampledChildren;
+        if (handle == null || children.isEmpty()) {
+            if (getToolTipText() != null) {
+                setToolTipText(null);
+            }
+            return;
+        }
+        // 最慢的子任务: 运行中且剩余时间最长,剩余时间未知的按进度最低
+        ChildInfo slowest = null;
+        for (ChildInfo child : children) {
+            if (child.status() == Status.RUNNING && (slowest == null || slowerThan(child, slowest))) {
+                slowest = child;
+            }
+        }
+        DecimalFormat percentFormat = new DecimalFormat("0.0%");
+        StringBuilder html = new StringBuilder("<html><table cellspacing=0 cellpadding=1>");
+        for (ChildInfo child : children) {
+            html.append("<tr><td>").append(escapeHtml(child.name() == null ? "" : child.name()))
+                    .append("</td><td align=right>").append(percentFormat.format(child.progress()))
+                    .append("</td><td align=right>");
+            switch (child.status()) {
+                case COMPLETE -> html.append("完成");
+                case ERROR -> html.append("出错");
+                case RUNNING -> {
+                    html.append(formatRate(child.rate())).append("/s");
+                    if (child.etaMillis() >= 0) {
+                        html.append("</td><td align=right>").append(formatDuration(child.etaMillis()));
+                    }
+                }
+            }
+            html.append("</td>");
+            if (child == slowest && children.size() > 1) {
+                html.append("<td><b>最慢</b></td>");
+            }
+            html.append("</tr>");
+        }
+        html.append("</table></html>");
+        String text = html.toString();
+        if (!text.equals(getToolTipText())) {
+            setToolTipText(text);
+        }
+    }
+
+    private static boolean slowerThan(ChildInfo a, ChildInfo b) {
+        if (a.etaMillis() >= 0 && b.etaMillis() >= 0) {
+            return a.etaMillis() > b.etaMillis();
+        }
+        if (a.etaMillis() >= 0 || b.etaMillis() >= 0) {
+            // 剩余时间未知(还没有速度)的更慢
+            return a.etaMillis() < 0;
+        }
+        return a.progress() < b.progress();
+    }
+
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    /**
+     * 格式化速度,超过一千时使用k/M/G
+     *
+     * @param rate 每秒完成量
+     * @return 格式化后的文本
+     */
+    public static String formatRate(double rate) {
+        if (rate >= 1e9) {
+            return String.format("%.1fG", rate / 1e9);
+        }
+        if (rate >= 1e6) {
+            return String.format("%.1fM", rate / 1e6);
+        }
+        if (rate >= 1e3) {
+            return String.format("%.1fk", rate / 1e3);
+        }
+        return rate >= 10 ? String.valueOf(Math.round(rate)) : String.format("%.1f", rate);
+    }
+
+    /**
+     * 格式化时长
+     *
+     * @param millis 毫秒
+     * @return 形如"1:02:03"或"02:03"的文本
+     */
+    public static String formatDuration(long millis) {
+        long seconds = (millis + 999) / 1000;
+        long hours = seconds / 3600;
+        if (hours > 0) {
+            return String.format("%d:%02d:%02d", hours, seconds / 60 % 60, seconds % 60);
+        }
+        return String.format("%02d:%02d", seconds / 60, seconds % 60);
+    }
+
     /**
      * 设置任务状态为运行中
      */
@@ -160,10 +474,16 @@ public class MyProgressBar extends JProgressBar {
     /**
      * 获取进度信息
      *
-     * @return 包含最小值、最大值、当前值、进度百分比、鼠标悬停状态和任务状态的ProgressInfo对象
+     * <p>绑定了句柄时返回最近一次采样的完成量、总量(long)、速度、剩余时间以及各子任务信息；否则取进度条自身的范围和当前值，速度为0
+     *
+     * @return 包含最小值、最大值、当前值、进度百分比、鼠标悬停状态、任务状态、速度、剩余时间和子任务的ProgressInfo对象
      */
     public ProgressInfo getProgressInfo() {
-        return new ProgressInfo(getMinimum(), getMaximum(), getValue(), getProgress(), hover, status);
+        if (handle != null && sampledDone >= 0) {
+            long eta = status == Status.RUNNING ? sampledEta : -1;
+            return new ProgressInfo(0, sampledTotal, sampledDone, getProgress(), hover, status, rate.getRate(), eta, sampledChildren);
+        }
+        return new ProgressInfo(getMinimum(), getMaximum(), getValue(), getProgress(), hover, status, 0, -1, List.of());
     }
 
     /**
@@ -172,6 +492,9 @@ public class MyProgressBar extends JProgressBar {
      * @return 当前进度的百分比，范围为0.0到1.0
      */
     public double getProgress() {
+        if (handle != null && sampledDone >= 0) {
+            return sampledFraction;
+        }
         int maximum = getMaximum();
         if (maximum == 0) {
             return 0;
@@ -203,7 +526,34 @@ public class MyProgressBar extends JProgressBar {
     }
 
 
-    public record ProgressInfo(int min, int max, int value, double progress, boolean hover, Status status) {}
+    /**
+     * 进度信息
+     *
+     * @param min 最小值
+     * @param max 最大值(绑定句柄时为总量)
+     * @param value 当前值(绑定句柄时为完成量)
+     * @param progress 进度比例,范围0~1
+     * @param hover 鼠标是否悬停
+     * @param status 任务状态
+     * @param rate 平滑后的速度(每秒完成量),未知时为0
+     * @param etaMillis 预计剩余时间(毫秒),未知时为-1
+     * @param children 各子任务的信息,没有子任务时为空列表
+     */
+    public record ProgressInfo(long min, long max, long value, double progress, boolean hover, Status status, double rate, long etaMillis, List<ChildInfo> children) {}
+
+    /**
+     * 子任务的进度信息
+     *
+     * @param name 名称
+     * @param weight 权重
+     * @param max 总量
+     * @param value 完成量
+     * @param progress 进度比例,范围0~1
+     * @param status 状态
+     * @param rate 平滑后的速度(每秒完成量),未知时为0
+     * @param etaMillis 预计剩余时间(毫秒),已完成为0,未知时为-1
+     */
+    public record ChildInfo(String name, double weight, long max, long value, double progress, Status status, double rate, long etaMillis) {}
 
     public enum Status {
         RUNNING,
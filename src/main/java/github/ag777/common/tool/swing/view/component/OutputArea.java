@@ -1,110 +1,321 @@
 package github.ag777.common.tool.swing.view.component;
 
+import github.ag777.common.tool.swing.log.OutputAreaAppender;
+import github.ag777.common.tool.swing.util.Commons;
+import github.ag777.common.tool.swing.util.ui.DialogUtils;
+import github.ag777.common.tool.swing.util.ui.FilePicker;
 import github.ag777.common.tool.swing.util.ui.BorderUtils;
 import github.ag777.common.tool.swing.util.ui.ScrollPaneUtils;
 import github.ag777.common.tool.swing.util.ui.layout.BorderLayoutHelper;
+import github.ag777.common.tool.swing.util.ui.layout.FlowLayoutHelper;
+import github.ag777.common.tool.swing.view.component.output.AnsiParser;
+import github.ag777.common.tool.swing.view.component.output.CompressedArchive;
+import github.ag777.common.tool.swing.view.component.output.FileTailer;
+import github.ag777.common.tool.swing.view.component.output.FindBar;
+import github.ag777.common.tool.swing.view.component.output.LineBatcher;
+import github.ag777.common.tool.swing.view.component.output.LineExporter;
+import github.ag777.common.tool.swing.view.component.output.LineFilter;
+import github.ag777.common.tool.swing.view.component.output.LineIndex;
+import github.ag777.common.tool.swing.view.component.output.LineStore;
+import github.ag777.common.tool.swing.view.component.output.LineView;
+import github.ag777.common.tool.swing.view.component.output.SpillFileArchive;
+import github.ag777.common.tool.swing.view.component.output.StyleRuns;
+import github.ag777.common.tool.swing.view.component.progress.ProgressHandle;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
 
 import javax.swing.*;
-import javax.swing.event.DocumentEvent;
-import javax.swing.event.DocumentListener;
-import javax.swing.text.BadLocationException;
-import javax.swing.text.Document;
-import javax.swing.text.Element;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
  * @author ag777 <837915770@vip.qq.com>
  * @version 2024/9/29 上午9:02
  */
+@Slf4j
 @Accessors(chain = true)
 public class OutputArea extends JPanel{
 
     /**
-     * 文本输出区域，用于显示日志等文本内容
+     * 磁盘溢出模式下未设置最大行数时，内存中默认保留的行数
+     */
+    public static final int DEFAULT_MEMORY_LINE_COUNT = 10000;
+
+    /**
+     * 暂停期间默认最多缓存的行数，超出后丢弃最早缓存的行
+     */
+    public static final int DEFAULT_PENDING_LINE_COUNT = 100000;
+
+    /**
+     * 行存储，有界环形缓冲，超过最大行数时以O(1)代价淘汰最早的行
      */
     @Getter
-    private final JTextArea textArea;
+    private final LineStore lineStore;
 
     /**
-     * 进度条组件，用于显示处理进度
+     * 文本输出区域，只绘制可见行，用于显示日志等文本内容
      */
     @Getter
-    private final MyProgressBar progressBar;
+    private final LineView lineView;
+
+    /**
+     * 包裹输出区域的滚动面板
+     */
+    private final JScrollPane scrollPane;
+
+    /**
+     * 按块维护的字符索引，供后台搜索跳过不可能匹配的行
+     */
+    private final LineIndex lineIndex;
+
+    /**
+     * 查找栏，Ctrl+F打开
+     */
+    @Getter
+    private final FindBar findBar;
+
+    /**
+     * 已注册的过滤视图，每行新输出写入时对每个过滤视图测试一次，只在EDT上访问
+     */
+    private final List<LineFilter> filters;
+
+    /**
+     * 过滤视图下拉框
+     */
+    private final MyComboBox<LineFilter> cbFilter;
+
+    /**
+     * 过滤栏，注册了过滤视图后才显示
+     */
+    private final JPanel filterBar;
+
+    /**
+     * 暂停栏，暂停时显示待输出的行数
+     */
+    private final JPanel pauseBar;
+
+    /**
+     * 待输出行数标签
+     */
+    private final JLabel lbPending;
+
+    /**
+     * 暂停期间缓存的行，有界，恢复时一次性写入
+     */
+    private final LineStore pendingStore;
+
+    /**
+     * 是否自动跟随最新输出，开启时也只在视图停留在底部时跟随
+     */
+    private boolean autoFollow = true;
+
+    /**
+     * 是否暂停，只在EDT上访问
+     */
+    private boolean paused;
+
+    /**
+     * 暂停期间是否收到过清空请求，只在EDT上访问
+     */
+    private boolean pendingReset;
+
+    /**
+     * 暂停期间因缓存满被丢弃的行数，只在EDT上访问
+     */
+    private long pendingDropped;
+
+    /**
+     * 输出内容面板(过滤栏+暂停栏+查找栏+滚动面板)
+     */
+    private final JPanel contentPanel;
 
     /**
-     * 最大行数限制，超过此行数将删除最早的行
+     * 进度条组件，用于显示处理进度
      */
-    @Setter
-    private Integer maxLineCount;
+    @Getter
+    private final MyProgressBar progressBar;
 
     /**
      * 是否始终显示进度条
      */
     private boolean alwaysShowProgressBar;
 
+    /**
+     * 按帧合并的输出缓冲，后台线程写入，EDT每帧统一插入一次
+     */
+    private final LineBatcher lineBatcher;
+
+    /**
+     * ANSI转义序列解析器，没有开启样式模式时为null
+     */
+    private volatile AnsiParser ansiParser;
+
+    /**
+     * 当前跟踪的文件，没有时为null
+     */
+    private FileTailer fileTailer;
+
+    /**
+     * {@link #setProgress(int, int, int)}使用的进度句柄，与保存输出、{@link #startProgress(long)}的句柄互不复用
+     */
+    private volatile ProgressHandle progressHandle;
+
+    /**
+     * 正在执行的保存的取消标记，没有进行中的保存时为null
+     */
+    private final AtomicReference<AtomicBoolean> exportCancel = new AtomicReference<>();
+
     /**
      * 构造函数，初始化组件并设置布局
      */
     public OutputArea() {
-        textArea = new JTextArea();
-        initTextarea();
-        JScrollPane scrollPane = ScrollPaneUtils.wrap(textArea);
+        lineStore = new LineStore();
+        lineView = new LineView(lineStore);
+        lineBatcher = new LineBatcher(this::onFlush);
+        scrollPane = ScrollPaneUtils.wrap(lineView);
+        lineIndex = new LineIndex();
+        findBar = new FindBar(lineStore, lineIndex, lineView);
+        filters = new ArrayList<>();
+        cbFilter = new MyComboBox<LineFilter>()
+                .itemStrRenderer(LineFilter::getName);
+        cbFilter.addItem(LineFilter.ALL);
+        cbFilter.onSelected(this::showFilter);
+        filterBar = FlowLayoutHelper.panel()
+                .alignLeft()
+                .add(new JLabel("过滤:"))
+                .add(cbFilter)
+                .get();
+        filterBar.setVisible(false);
+        pendingStore = new LineStore();
+        pendingStore.setCapacity(DEFAULT_PENDING_LINE_COUNT);
+        lbPending = new JLabel();
+        JButton btnResume = new JButton("继续");
+        btnResume.addActionListener(e -> resume());
+        pauseBar = FlowLayoutHelper.panel()
+                .alignLeft()
+                .add(lbPending)
+                .add(btnResume)
+                .get();
+        pauseBar.setVisible(false);
+        JPanel toolPanel = new JPanel();
+        toolPanel.setLayout(new BoxLayout(toolPanel, BoxLayout.Y_AXIS));
+        toolPanel.add(filterBar);
+        toolPanel.add(pauseBar);
+        toolPanel.add(findBar);
+        contentPanel = BorderLayoutHelper.panel()
+                .addComponent2North(toolPanel)
+                .addComponent2Center(scrollPane)
+                .get();
         progressBar = new MyProgressBar();
         this.alwaysShowProgressBar = false;
         initProgressBar();
+        initFindShortcut();
+        initPopupMenu();
 
         BorderLayoutHelper.newInstance(this)
-                .addComponent2Center(BorderUtils.title(scrollPane, "输出"))
+                .addComponent2Center(BorderUtils.title(contentPanel, "输出"))
                 .addComponent2South(progressBar);
     }
 
     /**
-     * 初始化文本区域，添加文档监听器以实现行数限制功能
+     * 注册查找快捷键: Ctrl+F打开查找栏，F3/Shift+F3跳转下一个/上一个匹配
      */
-    private void initTextarea() {
-        // 监听文档变化
-        Document document = textArea.getDocument();
-        document.addDocumentListener(new DocumentListener() {
+    private void initFindShortcut() {
+        int menuMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        InputMap inputMap = getInputMap(WHEN_ANCESTOR_OF_FOCUSED_COMPONENT);
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_F, menuMask), "openFind");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "findNext");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, KeyEvent.SHIFT_DOWN_MASK), "findPrevious");
+        getActionMap().put("openFind", new AbstractAction() {
             @Override
-            public void insertUpdate(DocumentEvent e) {
-                handleTextChange(e);
+            public void actionPerformed(ActionEvent e) {
+                findBar.open();
             }
-
+        });
+        getActionMap().put("findNext", new AbstractAction() {
             @Override
-            public void removeUpdate(DocumentEvent e) {
-                handleTextChange(e);
+            public void actionPerformed(ActionEvent e) {
+                findBar.next();
             }
-
+        });
+        getActionMap().put("findPrevious", new AbstractAction() {
             @Override
-            public void changedUpdate(DocumentEvent e) {
-                handleTextChange(e);
+            public void actionPerformed(ActionEvent e) {
+                findBar.previous();
             }
+        });
+    }
 
-            /**
-             * 处理文本变化事件，当超过最大行数时删除最早的行
-             */
-            private void handleTextChange(DocumentEvent e) {
-                if (maxLineCount == null) {
-                    return;
-                }
-                Document d = e.getDocument();
-                Element root = d.getDefaultRootElement();
-                int lineCount = root.getElementCount();
-                if (lineCount>maxLineCount) {
-                    SwingUtilities.invokeLater(()->{
-                        try {
-                            Element firstElement = root.getElement(0);
-                            d.remove(firstElement.getStartOffset(), firstElement.getEndOffset());
-                        } catch (BadLocationException ignored) {
-                        }
-                    });
-                }
-
+    /**
+     * 初始化右键菜单: 复制、全选、暂停/继续、保存输出、时间列、跳转到时间
+     */
+    private void initPopupMenu() {
+        JMenuItem miCopy = new JMenuItem("复制");
+        miCopy.addActionListener(e -> lineView.copySelection());
+        JMenuItem miSelectAll = new JMenuItem("全选");
+        miSelectAll.addActionListener(e -> lineView.selectAll());
+        JMenuItem miPause = new JMenuItem();
+        miPause.addActionListener(e -> setPaused(!paused));
+        JMenuItem miSave = new JMenuItem();
+        miSave.addActionListener(e -> {
+            if (exportCancel.get() != null) {
+                cancelExport();
+            } else {
+                saveOutput();
             }
         });
+        JMenu menuTime = new JMenu("时间列");
+        ButtonGroup timeGroup = new ButtonGroup();
+        Map<LineView.TimeMode, JRadioButtonMenuItem> timeItems = new EnumMap<>(LineView.TimeMode.class);
+        String[] timeNames = {"不显示", "绝对时间", "相对时间"};
+        for (LineView.TimeMode mode : LineView.TimeMode.values()) {
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(timeNames[mode.ordinal()]);
+            item.addActionListener(e -> lineView.setTimeMode(mode));
+            timeGroup.add(item);
+            menuTime.add(item);
+            timeItems.put(mode, item);
+        }
+        JMenuItem miJumpTime = new JMenuItem("跳转到时间…");
+        miJumpTime.addActionListener(e -> promptJumpToTime());
+        JPopupMenu popupMenu = new JPopupMenu() {
+            @Override
+            public void show(Component invoker, int x, int y) {
+                miPause.setText(paused ? "继续输出" : "暂停输出");
+                miSave.setText(exportCancel.get() != null ? "取消保存" : "保存输出…");
+                timeItems.get(lineView.getTimeMode()).setSelected(true);
+                super.show(invoker, x, y);
+            }
+        };
+        popupMenu.add(miCopy);
+        popupMenu.add(miSelectAll);
+        popupMenu.addSeparator();
+        popupMenu.add(miPause);
+        popupMenu.add(miSave);
+        popupMenu.addSeparator();
+        popupMenu.add(menuTime);
+        popupMenu.add(miJumpTime);
+        lineView.setComponentPopupMenu(popupMenu);
     }
 
     /**
@@ -132,7 +343,7 @@ public class OutputArea extends JPanel{
         removeAll();
         BorderLayoutHelper.newInstance(this)
                 .addComponent2North(progressBar)
-                .addComponent2Center(ScrollPaneUtils.wrap(textArea));
+                .addComponent2Center(contentPanel);
         return this;
     }
 
@@ -164,59 +375,657 @@ public class OutputArea extends JPanel{
      * @return 当前实例，支持链式调用
      */
     public OutputArea setTitle(String title) {
-        BorderUtils.title(textArea, title);
+        BorderUtils.title(contentPanel, title);
         return this;
     }
 
     /**
-     * 滚动到文本区域底部
+     * 设置最大行数限制，超过此行数将淘汰最早的行
+     * <p>开启磁盘溢出模式时表示内存中保留的行数，淘汰的行会转入溢出文件
+     * @param maxLineCount 最大行数，null表示不限制
+     * @return 当前实例，支持链式调用
      */
-    private void scrollToBottom() {
+    public OutputArea setMaxLineCount(Integer maxLineCount) {
+        lineStore.setCapacity(maxLineCount);
+        SwingUtilities.invokeLater(lineView::linesChanged);
+        return this;
+    }
+
+    /**
+     * 开启磁盘溢出模式，超过最大行数的旧行写入临时目录下的文件而不是丢弃，回看历史时再按需读回
+     * <p>内存中只保留最近maxLineCount行(未设置时保留{@value #DEFAULT_MEMORY_LINE_COUNT}行)，
+     * 历史部分每64行只占用一个long的索引，适合长时间运行、输出量很大的场景。
+     * 不再使用时需调用{@link #dispose()}删除临时文件
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea spillToDisk() {
+        if (lineStore.getCapacity() == null) {
+            lineStore.setCapacity(DEFAULT_MEMORY_LINE_COUNT);
+        }
+        try {
+            lineStore.setArchive(new SpillFileArchive(Commons.getModuleTempFile("output", ".log")));
+        } catch (IOException e) {
+            log.warn("创建输出溢出文件失败，超出的行将被丢弃", e);
+        }
+        return this;
+    }
+
+    /**
+     * 开启内存压缩历史模式，超过最大行数的旧行按块压缩后保留在内存中，回看历史时再按块解压
+     * <p>内存中未压缩的只有最近maxLineCount行(未设置时保留{@value #DEFAULT_MEMORY_LINE_COUNT}行)
+     * 和最近查看过的少量历史块，日志文本通常能压缩到原来的1/5~1/10，适合不方便写临时文件、又需要保留大量历史的场景
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea compressHistory() {
+        if (lineStore.getCapacity() == null) {
+            lineStore.setCapacity(DEFAULT_MEMORY_LINE_COUNT);
+        }
+        lineStore.setArchive(new CompressedArchive());
+        return this;
+    }
+
+    /**
+     * 注册过滤视图(如按日志级别、正则或任务id过滤)，可以在任意线程调用
+     * <p>注册后每行新输出只在写入时测试一次，切换视图时不再扫描历史；
+     * 注册时会对已有的行(包括溢出到磁盘的部分)补做一次测试，代价与已有行数成正比
+     * @param filter 过滤视图
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea addFilter(LineFilter filter) {
         SwingUtilities.invokeLater(() -> {
-            textArea.setCaretPosition(textArea.getDocument().getLength());
-            // 确保滚动条在底部
+            if (filter.isAll() || filters.contains(filter)) {
+                return;
+            }
+            backfill(filter);
+            filters.add(filter);
+            cbFilter.addItem(filter);
+            filterBar.setVisible(true);
+            contentPanel.revalidate();
+        });
+        return this;
+    }
+
+    /**
+     * 切换显示的过滤视图，可以在任意线程调用
+     * @param filter 已注册的过滤视图，null或{@link LineFilter#ALL}表示显示全部行
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea selectFilter(LineFilter filter) {
+        SwingUtilities.invokeLater(() -> cbFilter.select(filter == null ? LineFilter.ALL : filter));
+        return this;
+    }
+
+    /**
+     * 对已有的行补做一次过滤测试
+     * @param filter 过滤视图
+     */
+    private void backfill(LineFilter filter) {
+        String[] buffer = new String[4096];
+        long seq = lineStore.getFirstSeq();
+        long end = lineStore.getEndSeq();
+        while (seq < end) {
+            int count = lineStore.read(seq, buffer, 0, (int) Math.min(buffer.length, end - seq));
+            if (count <= 0) {
+                break;
+            }
+            filter.accept(seq, Arrays.asList(buffer).subList(0, count));
+            seq += count;
+        }
+    }
+
+    /**
+     * 在EDT上切换视图，尽量保持可见区域第一行不变
+     * @param filter 过滤视图
+     */
+    private void showFilter(LineFilter filter) {
+        if (filter == null || filter == lineView.getFilter()) {
+            return;
+        }
+        long firstVisible = lineView.firstVisibleSeq();
+        lineView.setFilter(filter);
+        scrollPane.validate();
+        lineView.scrollToSeq(firstVisible);
+    }
+
+    /**
+     * 跟踪文件(类似tail -F)，先输出文件已有内容，之后文件追加的内容会实时输出
+     * <p>只读取新追加的字节，能处理文件截断和轮转(路径指向新文件)，文件不存在时等待其出现；
+     * 同一时间只跟踪一个文件，再次调用会先停止之前的跟踪
+     * @param file 要跟踪的文件
+     * @param charset 文件编码
+     * @return 当前实例，支持链式调用
+     */
+    public synchronized OutputArea follow(Path file, Charset charset) {
+        stopFollow();
+        fileTailer = new FileTailer(file, charset, this);
+        fileTailer.start();
+        return this;
+    }
+
+    /**
+     * 停止跟踪文件，已输出的内容保留
+     * @return 当前实例，支持链式调用
+     */
+    public synchronized OutputArea stopFollow() {
+        if (fileTailer != null) {
+            fileTailer.stop();
+            fileTailer = null;
+        }
+        return this;
+    }
+
+    /**
+     * 将所有输出(包括溢出到磁盘的部分)流式写入文件，阻塞到写完为止，不要在EDT上调用
+     * <p>按块读取、编码后写入，内存占用与输出总量无关；进度显示在进度条上，
+     * 调用{@link #cancelExport()}可以取消，取消时删除未写完的文件。同一时间只能有一个保存在进行
+     * @param file 目标文件，已存在时覆盖
+     * @param charset 文件编码
+     * @return 写入的行数
+     * @throws IOException 写入失败
+     * @throws CancellationException 保存被取消
+     * @throws IllegalStateException 已有保存在进行中
+     */
+    public long exportTo(Path file, Charset charset) throws IOException {
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        if (!exportCancel.compareAndSet(null, cancelled)) {
+            throw new IllegalStateException("已有保存在进行中");
+        }
+        return export(file, charset, cancelled);
+    }
+
+    /**
+     * 执行保存，结束后清除取消标记
+     * @param cancelled 已登记到exportCancel的取消标记
+     */
+    private long export(Path file, Charset charset, AtomicBoolean cancelled) throws IOException {
+        // 进度由进度条定时采样，导出线程只更新计数
+        ProgressHandle handle = progressBar.bind(Math.max(lineStore.size(), 1));
+        try {
+            long written = LineExporter.export(lineStore, file, charset, handle::set, cancelled::get);
+            handle.complete();
+            return written;
+        } catch (IOException | RuntimeException e) {
+            handle.fail();
+            throw e;
+        } finally {
+            exportCancel.compareAndSet(cancelled, null);
+        }
+    }
+
+    /**
+     * 弹出文件选择框并在后台保存输出(UTF-8)
+     */
+    public void saveOutput() {
+        File file = FilePicker.choose(null, null, JFileChooser.FILES_ONLY);
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        if (file == null || !exportCancel.compareAndSet(null, cancelled)) {
+            return;
+        }
+        Thread.ofVirtual().name("output-export").start(() -> {
             try {
-                textArea.scrollRectToVisible(textArea.modelToView2D(textArea.getDocument().getLength()).getBounds());
-            } catch (Exception ignored) {}
+                export(file.toPath(), StandardCharsets.UTF_8, cancelled);
+            } catch (CancellationException e) {
+                log.debug("保存输出已取消");
+            } catch (IOException e) {
+                log.warn("保存输出失败", e);
+                SwingUtilities.invokeLater(() -> DialogUtils.showWarningDialog(this, "错误", "保存输出失败: " + e.getMessage()));
+            }
         });
     }
 
     /**
-     * 追加一行文本
+     * 取消正在进行的保存，保存线程在写完当前一批行后停止并删除未写完的文件
+     */
+    public void cancelExport() {
+        AtomicBoolean cancelled = exportCancel.get();
+        if (cancelled != null) {
+            cancelled.set(true);
+        }
+    }
+
+    /**
+     * 释放资源(停止刷新、停止跟踪文件、停止搜索线程、删除溢出文件)，组件不再使用时调用
+     */
+    public void dispose() {
+        stopFollow();
+        cancelExport();
+        lineBatcher.stop();
+        findBar.dispose();
+        OutputAreaAppender.unregister(this);
+        lineStore.setArchive(null);
+        progressBar.unbind();
+    }
+
+    /**
+     * 暂停输出，可以在任意线程调用
+     * <p>暂停后界面冻结，不再做任何布局、绘制和滚动；写入的行进入有界缓存，
+     * 暂停栏显示待输出的行数，恢复时一次性写入
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea pause() {
+        return setPaused(true);
+    }
+
+    /**
+     * 恢复输出，暂停期间缓存的行一次性写入，可以在任意线程调用
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea resume() {
+        return setPaused(false);
+    }
+
+    /**
+     * 设置是否暂停输出，可以在任意线程调用
+     * @param paused 是否暂停
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea setPaused(boolean paused) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> setPaused(paused));
+            return this;
+        }
+        if (this.paused == paused) {
+            return this;
+        }
+        this.paused = paused;
+        if (paused) {
+            refreshPendingLabel();
+        } else {
+            flushPending();
+        }
+        pauseBar.setVisible(paused);
+        contentPanel.revalidate();
+        return this;
+    }
+
+    /**
+     * 设置暂停期间最多缓存的行数
+     * @param maxPendingLineCount 最多缓存的行数，超出后丢弃最早缓存的行
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea setMaxPendingLineCount(int maxPendingLineCount) {
+        pendingStore.setCapacity(maxPendingLineCount);
+        return this;
+    }
+
+    /**
+     * @return 是否暂停输出
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * 暂停期间收到一帧输出: 只写入缓存并更新待输出行数，不触碰界面
+     */
+    private void onFlushPaused(List<String> lines, int[] repeats, StyleRuns[] styles, int previousRepeats, boolean reset) {
+        if (reset) {
+            pendingStore.clear();
+            pendingReset = true;
+            pendingDropped = 0;
+        }
+        if (previousRepeats > 0) {
+            if (pendingStore.memorySize() > 0) {
+                pendingStore.addRepeats(pendingStore.getEndSeq() - 1, previousRepeats);
+            } else if (!pendingReset) {
+                // 重复的是界面上已有的最后一行，恢复后重绘时自然显示新计数
+                lineStore.addRepeats(lineStore.getEndSeq() - 1, previousRepeats);
+            }
+        }
+        pendingDropped += pendingStore.append(lines, repeats, styles);
+        refreshPendingLabel();
+    }
+
+    /**
+     * 恢复时把缓存的行一次性写入
+     */
+    private void flushPending() {
+        int count = pendingStore.memorySize();
+        if (count == 0 && !pendingReset) {
+            return;
+        }
+        String[] buffer = new String[count];
+        long firstSeq = pendingStore.getFirstSeq();
+        pendingStore.read(firstSeq, buffer, 0, count);
+        int[] repeats = new int[count];
+        StyleRuns[] styles = new StyleRuns[count];
+        long[] times = new long[count];
+        for (int i = 0; i < count; i++) {
+            repeats[i] = pendingStore.getRepeats(firstSeq + i);
+            styles[i] = pendingStore.getStyles(firstSeq + i);
+            times[i] = pendingStore.getTime(firstSeq + i);
+        }
+        boolean reset = pendingReset;
+        pendingStore.clear();
+        pendingReset = false;
+        pendingDropped = 0;
+        // 保留暂停期间各行到达的时间
+        writeLines(Arrays.asList(buffer), repeats, styles, times, 0, reset);
+    }
+
+    private void refreshPendingLabel() {
+        String text = "已暂停，" + pendingStore.memorySize() + "行待输出";
+        if (pendingDropped > 0) {
+            text += "(缓存已满，丢弃了最早的" + pendingDropped + "行)";
+        }
+        lbPending.setText(text);
+    }
+
+    /**
+     * 设置是否折叠连续重复的行，折叠后重复的行只显示一次，并在行尾显示"×N"计数
+     * <p>比较在写入线程中进行，重复的行不会进入界面队列，适合反复打印同一状态行的轮询类输出
+     * @param enabled 是否折叠
+     * @param maskDigits 比较前是否忽略数字的差异(如带时间戳或计数的状态行)，显示的是第一次出现的内容
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea foldRepeats(boolean enabled, boolean maskDigits) {
+        lineBatcher.setFolding(enabled, maskDigits);
+        return this;
+    }
+
+    /**
+     * 设置单行最多显示的字符数(默认{@value LineView#DEFAULT_MAX_DISPLAY_CHARS})
+     * <p>超长行(如整段压缩的JSON)完整保存，但只测量和绘制前面一段，行尾显示被隐藏的字符数，
+     * 双击该行可以在对话框中查看完整内容；复制、搜索和保存输出仍针对完整内容
+     * @param maxLineChars 单行最多显示的字符数
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea maxLineChars(int maxLineChars) {
+        lineView.setMaxDisplayChars(maxLineChars);
+        return this;
+    }
+
+    /**
+     * 设置行首时间列的显示方式，每行的写入时间总会被记录，切换显示方式不影响已有的行
+     * @param timeMode 不显示(默认)、绝对时间或相对第一行的时间
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea showTime(LineView.TimeMode timeMode) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            lineView.setTimeMode(timeMode);
+        } else {
+            SwingUtilities.invokeLater(() -> lineView.setTimeMode(timeMode));
+        }
+        return this;
+    }
+
+    /**
+     * 跳转到指定时间写入的行(按写入时间二分查找)，选中并滚动到该行，只在EDT上调用
+     * <p>只查找内存中的行，时间早于内存中最早一行时跳转到最早一行
+     * @param time 时间(毫秒)
+     * @return 是否找到了行
+     */
+    public boolean jumpToTime(long time) {
+        long seq = lineStore.seqAtTime(time);
+        if (seq < 0) {
+            return false;
+        }
+        lineView.selectSeq(seq);
+        return true;
+    }
+
+    /**
+     * 弹出输入框，按今天的时刻(HH:mm:ss或HH:mm:ss.SSS)跳转
+     */
+    private void promptJumpToTime() {
+        String input = JOptionPane.showInputDialog(this, "跳转到时间(HH:mm:ss):", "跳转到时间", JOptionPane.QUESTION_MESSAGE);
+        if (input == null || input.isBlank()) {
+            return;
+        }
+        try {
+            LocalTime localTime = LocalTime.parse(input.trim());
+            long time = localTime.atDate(LocalDate.now()).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            if (!jumpToTime(time)) {
+                DialogUtils.showWarningDialog(this, "跳转到时间", "没有输出内容");
+            }
+        } catch (DateTimeParseException e) {
+            DialogUtils.showWarningDialog(this, "跳转到时间", "时间格式不正确: " + input);
+        }
+    }
+
+    /**
+     * 设置是否解析ANSI颜色转义序列(样式模式)
+     * <p>开启后在写入线程中把转义序列解析为样式片段，界面按片段着色绘制；
+     * 关闭时(默认)转义序列按原文显示。搜索、过滤和保存输出都只针对去掉转义序列后的文本
+     * @param enabled 是否开启
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea ansiStyles(boolean enabled) {
+        ansiParser = enabled ? new AnsiParser() : null;
+        return this;
+    }
+
+    /**
+     * 设置输出刷新的帧间隔，同一帧内追加的所有行会合并为一次插入
+     * @param intervalMillis 帧间隔(毫秒)，建议16~50，默认30
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea flushInterval(int intervalMillis) {
+        lineBatcher.setInterval(intervalMillis);
+        return this;
+    }
+
+    /**
+     * 获取等待输出的行数(队列深度)
+     * @return 尚未刷新到界面上的行数
+     */
+    public int getPendingLineCount() {
+        return lineBatcher.getQueueDepth();
+    }
+
+    /**
+     * 获取最近一秒的输出速度
+     * @return 行/秒
+     */
+    public double getLinesPerSecond() {
+        return lineBatcher.getLinesPerSecond();
+    }
+
+    /**
+     * 设置是否自动跟随最新输出(默认开启)
+     * <p>开启时只有视图停留在底部才会跟随，用户向上滚动查看历史后不再被拉回底部，滚回底部后自动恢复跟随
+     * @param autoFollow 是否自动跟随
+     * @return 当前实例，支持链式调用
+     */
+    public OutputArea autoFollow(boolean autoFollow) {
+        this.autoFollow = autoFollow;
+        return this;
+    }
+
+    /**
+     * 根据滚动条模型判断视图是否停留在底部，允许半行的误差，只在EDT上调用
+     * @return 是否在底部
+     */
+    private boolean isAtBottom() {
+        BoundedRangeModel model = scrollPane.getVerticalScrollBar().getModel();
+        return model.getValue() + model.getExtent() >= model.getMaximum() - lineView.getRowHeight() / 2;
+    }
+
+    /**
+     * 滚动到文本区域底部，只在EDT上调用
+     */
+    private void scrollToBottom() {
+        // 先同步布局，让滚动条范围反映最新的行数
+        scrollPane.validate();
+        JScrollBar bar = scrollPane.getVerticalScrollBar();
+        bar.setValue(bar.getMaximum() - bar.getVisibleAmount());
+    }
+
+    /**
+     * 每帧在EDT上执行一次，将本帧的所有行一次性写入行存储，视图停留在底部时最多滚动一次
+     * @param lines 本帧待输出的行
+     * @param repeats 折叠模式下每行额外重复的次数，没有时为null
+     * @param styles 样式模式下每行的样式片段，没有时为null
+     * @param previousRepeats 折叠模式下已输出的最后一行又重复的次数
+     * @param reset 是否先清空已有内容
+     */
+    private void onFlush(List<String> lines, int[] repeats, StyleRuns[] styles, int previousRepeats, boolean reset) {
+        if (paused) {
+            onFlushPaused(lines, repeats, styles, previousRepeats, reset);
+            return;
+        }
+        writeLines(lines, repeats, styles, null, previousRepeats, reset);
+    }
+
+    /**
+     * 把一批行写入行存储并刷新界面
+     * @param times 每行的写入时间，null表示使用当前时间
+     */
+    private void writeLines(List<String> lines, int[] repeats, StyleRuns[] styles, long[] times, int previousRepeats, boolean reset) {
+        if (reset) {
+            lineStore.clear();
+        }
+        // 每帧只在写入前根据滚动条模型判断一次是否跟随
+        boolean follow = autoFollow && isAtBottom();
+        long firstSeq = lineStore.getEndSeq();
+        if (previousRepeats > 0) {
+            // 重复的行不重新追加，只原地更新计数
+            lineStore.addRepeats(firstSeq - 1, previousRepeats);
+            lineView.repaintSeq(firstSeq - 1);
+            if (lines.isEmpty()) {
+                return;
+            }
+        }
+        lineStore.append(lines, repeats, styles, times);
+        lineIndex.indexLines(firstSeq, lines);
+        lineIndex.trim(lineStore.getFirstSeq());
+        for (LineFilter filter : filters) {
+            filter.accept(firstSeq, lines);
+            filter.trim(lineStore.getFirstSeq());
+        }
+        findBar.linesAppended();
+        lineView.linesAppended(lines);
+        if (follow) {
+            scrollToBottom();
+        }
+    }
+
+    /**
+     * 追加一行文本，可以在任意线程调用，实际输出在下一帧统一进行
+     * <p>文本中包含换行符时会拆分为多行
      * @param text 要追加的文本
      */
     public void appendLine(String text) {
-        textArea.append(text+"\n");
-        scrollToBottom();
+        offerLines(String.valueOf(text));
+    }
+
+    /**
+     * 一次追加一批文本，可以在任意线程调用，文本中包含换行符时会拆分为多行
+     * <p>与逐条{@link #appendLine(String)}一样经过帧缓冲，与其他来源的行保持先后顺序，也同样参与折叠和清空；
+     * 供已经按帧合并过的来源使用(如{@link OutputAreaAppender})，在EDT上调用时立即输出，避免再多等一帧
+     * @param texts 要追加的文本
+     */
+    public void appendLines(List<String> texts) {
+        List<String> lines = new ArrayList<>(texts.size());
+        AnsiParser parser = ansiParser;
+        if (parser == null) {
+            for (String text : texts) {
+                splitLines(String.valueOf(text), lines::add);
+            }
+            lineBatcher.offerAll(lines, null);
+        } else {
+            List<StyleRuns> styles = new ArrayList<>(texts.size());
+            for (String text : texts) {
+                splitLines(String.valueOf(text), line -> parser.parse(line, (plain, runs) -> {
+                    lines.add(plain);
+                    styles.add(runs);
+                }));
+            }
+            lineBatcher.offerAll(lines, styles);
+        }
+        if (SwingUtilities.isEventDispatchThread()) {
+            lineBatcher.flush();
+        }
+    }
+
+    /**
+     * 将文本按换行符拆分后写入缓冲
+     * @param text 文本
+     */
+    private void offerLines(String text) {
+        AnsiParser parser = ansiParser;
+        if (parser == null) {
+            splitLines(text, lineBatcher::offer);
+        } else {
+            splitLines(text, line -> parser.parse(line, lineBatcher::offer));
+        }
+    }
+
+    private static void splitLines(String text, Consumer<String> consumer) {
+        int start = 0;
+        int index;
+        while ((index = text.indexOf('\n', start)) >= 0) {
+            consumer.accept(stripCr(text, start, index));
+            start = index + 1;
+        }
+        consumer.accept(stripCr(text, start, text.length()));
+    }
+
+    private static String stripCr(String text, int start, int end) {
+        if (end > start && text.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return start == 0 && end == text.length() ? text : text.substring(start, end);
     }
 
     /**
-     * 设置文本内容
+     * 设置文本内容，可以在任意线程调用
      * @param text 要设置的文本
      */
     public void setText(String text) {
-        textArea.setText(text+"\n");
-        scrollToBottom();
+        resetOutput();
+        offerLines(String.valueOf(text));
     }
 
     /**
-     * 清空文本内容
+     * 清空文本内容，尚未输出的行也会被丢弃
      */
     public void clearText() {
-        textArea.setText("");
+        resetOutput();
+    }
+
+    private void resetOutput() {
+        lineBatcher.reset();
+        AnsiParser parser = ansiParser;
+        if (parser != null) {
+            parser.reset();
+        }
     }
 
     /**
-     * 设置进度条的进度
+     * 设置进度条的进度，可以在任意线程高频调用，只更新进度句柄中的计数，界面按固定频率刷新
+     * <p>使用本组件自己的句柄，进度条当前绑定的是其它句柄(如已结束的保存输出)时重新绑定
      * @param min 最小值
      * @param max 最大值
      * @param value 当前值
      * @return 当前实例，支持链式调用
      */
     public OutputArea setProgress(int min, int max, int value) {
-        progressBar.setMinimum(min);
-        progressBar.setMaximum(max);
-        progressBar.setValue(value);
+        ProgressHandle handle = progressHandle;
+        if (handle == null || progressBar.getHandle() != handle) {
+            synchronized (this) {
+                // 加锁后再判断一次，避免并发调用各自绑定一个新句柄
+                handle = progressHandle;
+                if (handle == null || progressBar.getHandle() != handle) {
+                    handle = new ProgressHandle(max - min);
+                    progressHandle = handle;
+                    progressBar.bind(handle);
+                }
+            }
+        }
+        handle.setTotal(max - min);
+        handle.set(value - min);
         return this;
     }
+
+    /**
+     * 开始一个新的进度，返回的句柄可以在任意线程高频更新，进度条按固定频率采样显示
+     * 并行任务可以通过{@link ProgressHandle#child(String, double, long)}为每个分区创建子句柄，
+     * 进度条显示加权汇总的总体进度，悬停时提示各分区的进度和速度
+     * @param total 总量，小于等于0表示未知
+     * @return 进度句柄
+     */
+    public ProgressHandle startProgress(long total) {
+        return progressBar.bind(total);
+    }
 }
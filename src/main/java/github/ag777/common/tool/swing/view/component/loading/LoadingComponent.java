@@ -2,9 +2,12 @@ package github.ag777.common.tool.swing.view.component.loading;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * 带加载遮罩的组件
+ * <p>
+ * 加载状态由{@link LoadingState}引用计数,加载持续超过宽限时间才显示遮罩,显示后至少保持一段时间
+ *
  * @author ag777 <837915770@vip.qq.com>
  * @version 2024/9/29 下午5:45
  */
@@ -12,12 +15,13 @@ public class LoadingComponent<T extends Container> extends JLayeredPane {
 
     protected final T component;
     private final LoadingPanel loadingPanel;
-    private final AtomicInteger loadingCount;
+    protected final LoadingState loadingState;
 
     public LoadingComponent(T component) {
         this.component = component;
-        loadingCount = new AtomicInteger(0);
         loadingPanel = new LoadingPanel();
+        loadingState = new LoadingState(loadingPanel);
+        loadingPanel.setTaskSupplier(loadingState::getTasks);
         setLayout(new OverlayLayout(this));
         // 将普通组件添加到底层
         add(component, JLayeredPane.DEFAULT_LAYER);
@@ -27,19 +31,20 @@ public class LoadingComponent<T extends Container> extends JLayeredPane {
 
 
     public boolean isLoading() {
-        return loadingCount.get() != 0;
+        return loadingState.isLoading();
     }
 
     public void setLoading(boolean loading) {
-        if (loading) {
-            loadingCount.incrementAndGet();
-            SwingUtilities.invokeLater(()-> loadingPanel.setVisible(true));
-        } else {
-            int count = loadingCount.decrementAndGet();
-            if (count == 0) {
-                SwingUtilities.invokeLater(()-> loadingPanel.setVisible(false));
-            }
-        }
+        loadingState.setLoading(loading);
+    }
 
+    /**
+     * 开始一个命名的加载任务,遮罩上会显示任务名称和已运行时长
+     *
+     * @param name 任务名称
+     * @return 任务句柄,关闭时结束加载
+     */
+    public LoadingTask beginLoading(String name) {
+        return loadingState.begin(name);
     }
 }
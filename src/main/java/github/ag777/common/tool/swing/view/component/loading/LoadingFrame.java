@@ -2,42 +2,69 @@ package github.ag777.common.tool.swing.view.component.loading;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.List;
 
 /**
+ * 带加载遮罩的窗口
+ * <p>
+ * 遮罩作为玻璃面板,与{@link LoadingComponent}一样由{@link LoadingState}引用计数,
+ * 多个切换页面或后台任务重叠时,全部结束后才隐藏;命名任务会显示在遮罩上
+ *
  * @author ag777 <837915770@vip.qq.com>
  * @version 2024/9/29 下午5:57
  */
 public class LoadingFrame extends JFrame {
     protected LoadingPanel loadingPanel;
+    protected LoadingState loadingState;
 
     public LoadingFrame() {
-        loadingPanel = new LoadingPanel();
-        setGlassPane(loadingPanel);
+        initLoading();
     }
 
     public LoadingFrame(String title, GraphicsConfiguration gc) {
         super(title, gc);
-        loadingPanel = new LoadingPanel();
-        setGlassPane(loadingPanel);
+        initLoading();
     }
 
     public LoadingFrame(String title) throws HeadlessException {
         super(title);
-        loadingPanel = new LoadingPanel();
-        setGlassPane(loadingPanel);
+        initLoading();
     }
 
     public LoadingFrame(GraphicsConfiguration gc) {
         super(gc);
+        initLoading();
+    }
+
+    private void initLoading() {
         loadingPanel = new LoadingPanel();
+        loadingState = new LoadingState(loadingPanel);
+        loadingPanel.setTaskSupplier(loadingState::getTasks);
         setGlassPane(loadingPanel);
     }
 
     public boolean isLoading() {
-        return loadingPanel.isVisible();
+        return loadingState.isLoading();
     }
 
     public void setLoading(boolean loading) {
-        SwingUtilities.invokeLater(()-> loadingPanel.setVisible(loading));
+        loadingState.setLoading(loading);
+    }
+
+    /**
+     * 开始一个命名的加载任务,遮罩上会显示任务名称和已运行时长
+     *
+     * @param name 任务名称
+     * @return 任务句柄,关闭时结束加载
+     */
+    public LoadingTask beginLoading(String name) {
+        return loadingState.begin(name);
+    }
+
+    /**
+     * @return 进行中的命名任务,按开始时间排序
+     */
+    public List<LoadingTask> getLoadingTasks() {
+        return loadingState.getTasks();
     }
 }
@@ -1,54 +1,99 @@
 package github.ag777.common.tool.swing.view.component.loading;
 
+import github.ag777.common.tool.swing.util.ui.AnimationClock;
+import github.ag777.common.tool.swing.view.component.MyProgressBar;
+
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
+ * 加载遮罩
+ * <p>
+ * 旋转动画由共用的{@link AnimationClock}驱动,只在面板显示时订阅,每帧只重绘加载图标所在的区域;
+ * 半透明背景预先绘制成与面板同尺寸的图片,尺寸变化时才重建
+ * <p>
+ * 设置了任务来源时,在加载图标下方列出进行中的任务及其已运行时长
+ *
  * @author ag777 <837915770@vip.qq.com>
  * @version 2024/9/29 下午4:09
  */
 public class LoadingPanel extends JPanel {
-    private Timer timer;
+    /** 加载图标大小 */
+    private static final int SPINNER_SIZE = 50;
+    /** 加载图标线宽 */
+    private static final int SPINNER_STROKE = 5;
+    /** 背景色,灰色叠加0.5透明度 */
+    private static final Color BACKGROUND = new Color(128, 128, 128, 128);
+    /** 图标与任务列表的间距 */
+    private static final int TASK_GAP = 12;
+    /** 最多列出的任务数 */
+    private static final int MAX_TASK_LINES = 5;
+
+    private final Runnable tick;
     private int angle = 0; // 用于旋转效果
+    /** 缓存的半透明背景 */
+    private BufferedImage background;
+    /** 进行中任务的来源,为null时不显示任务 */
+    private Supplier<List<LoadingTask>> taskSupplier;
+    /** 上一帧绘制的任务行数,决定重绘区域 */
+    private int paintedTaskLines;
 
     public LoadingPanel() {
         // 设置面板为透明
         setOpaque(false);
-
-        // 创建一个计时器，用于定时更新旋转角度
-        timer = new Timer(100, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                angle = (angle + 10) % 360; // 每次更新旋转角度
-                repaint(); // 触发重绘
+        tick = this::tick;
+        setVisible(false);
+        // 显示时才订阅动画时钟,隐藏或移出界面后不再产生定时事件
+        AnimationClock.whileShowing(this, tick);
+        // 隐藏后释放背景图片，面板很多时不长期占用内存
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && !isShowing()) {
+                background = null;
             }
         });
-        setVisible(false);
 
         // 确保面板可以响应鼠标事件，防止事件传递到下面的组件
         addMouseListener(new java.awt.event.MouseAdapter() {});
         addMouseMotionListener(new java.awt.event.MouseMotionAdapter() {});
     }
 
-    // 开始显示加载面板时，启动定时器
+    // 手动开始动画，面板隐藏时会自动停止
     public void startLoading() {
-        timer.start();
+        if (isShowing()) {
+            AnimationClock.subscribe(tick);
+        }
     }
 
-    // 停止加载面板时，停止定时器
+    // 手动停止动画
     public void stopLoading() {
-        timer.stop();
+        AnimationClock.unsubscribe(tick);
     }
 
-    @Override
-    public void setVisible(boolean aFlag) {
-        super.setVisible(aFlag);
-        if (aFlag) {
-            startLoading();
+    /**
+     * 设置进行中任务的来源,遮罩显示时每帧读取一次
+     *
+     * @param taskSupplier 任务来源,为null时不显示任务
+     */
+    public void setTaskSupplier(Supplier<List<LoadingTask>> taskSupplier) {
+        this.taskSupplier = taskSupplier;
+    }
+
+    // 每帧更新旋转角度，只重绘加载图标(有任务时连同任务列表)
+    private void tick() {
+        angle = (angle + 10) % 360; // 每次更新旋转角度
+        Rectangle bounds = getSpinnerBounds();
+        int margin = SPINNER_STROKE;
+        int lines = taskSupplier == null ? 0 : Math.max(paintedTaskLines, 1);
+        if (lines == 0) {
+            repaint(bounds.x - margin, bounds.y - margin, bounds.width + margin * 2, bounds.height + margin * 2);
         } else {
-            stopLoading();
+            // 任务数可能变化,多重绘一行
+            int height = bounds.height + margin * 2 + TASK_GAP + (lines + 1) * getTaskLineHeight();
+            repaint(0, bounds.y - margin, getWidth(), height);
         }
     }
 
@@ -57,31 +102,87 @@ public class LoadingPanel extends JPanel {
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
-        // 设置半透明背景
+        // 半透明背景从缓存图片绘制，只绘制剪裁区域
         Graphics2D g2d = (Graphics2D) g.create();
-        g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.5f)); // 半透明度为0.5
-        g2d.setColor(Color.GRAY);
-        g2d.fillRect(0, 0, getWidth(), getHeight());
+        g2d.drawImage(getBackgroundImage(), 0, 0, null);
 
         // 绘制旋转的进度条
-        g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f)); // 进度条不透明
         drawLoadingSpinner(g2d);
+        drawTasks(g2d);
 
         g2d.dispose();
     }
 
+    /**
+     * 获取与面板同尺寸的半透明背景，尺寸变化时重建
+     */
+    private BufferedImage getBackgroundImage() {
+        int width = Math.max(getWidth(), 1);
+        int height = Math.max(getHeight(), 1);
+        if (background == null || background.getWidth() != width || background.getHeight() != height) {
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            background = gc == null
+                    ? new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB)
+                    : gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+            Graphics2D g = background.createGraphics();
+            g.setComposite(AlphaComposite.Src);
+            g.setColor(BACKGROUND);
+            g.fillRect(0, 0, width, height);
+            g.dispose();
+        }
+        return background;
+    }
+
+    // 在加载图标下方居中列出任务名称和已运行时长
+    private void drawTasks(Graphics2D g2d) {
+        List<LoadingTask> tasks = taskSupplier == null ? List.of() : taskSupplier.get();
+        int lines = Math.min(tasks.size(), MAX_TASK_LINES);
+        boolean more = tasks.size() > MAX_TASK_LINES;
+        paintedTaskLines = lines + (more ? 1 : 0);
+        if (tasks.isEmpty()) {
+            return;
+        }
+        g2d.setColor(Color.WHITE);
+        FontMetrics metrics = g2d.getFontMetrics();
+        int lineHeight = metrics.getHeight();
+        int y = getSpinnerBounds().y + SPINNER_SIZE + SPINNER_STROKE + TASK_GAP + metrics.getAscent();
+        for (int i = 0; i < lines; i++) {
+            LoadingTask task = tasks.get(i);
+            String text = task.getName() + "  " + formatElapsed(task.getElapsedMillis());
+            g2d.drawString(text, (getWidth() - metrics.stringWidth(text)) / 2, y);
+            y += lineHeight;
+        }
+        if (more) {
+            String text = "…等" + tasks.size() + "个任务";
+            g2d.drawString(text, (getWidth() - metrics.stringWidth(text)) / 2, y);
+        }
+    }
+
+    private int getTaskLineHeight() {
+        return getFontMetrics(getFont()).getHeight();
+    }
+
+    private static String formatElapsed(long millis) {
+        if (millis < 60_000) {
+            return String.format("%.1fs", millis / 1000.0);
+        }
+        return MyProgressBar.formatDuration(millis);
+    }
+
+    private Rectangle getSpinnerBounds() {
+        return new Rectangle((getWidth() - SPINNER_SIZE) / 2, (getHeight() - SPINNER_SIZE) / 2, SPINNER_SIZE, SPINNER_SIZE);
+    }
+
     // 绘制一个简单的旋转加载图标
     private void drawLoadingSpinner(Graphics2D g2d) {
-        int size = 50; // 进度条大小
-        int x = (getWidth() - size) / 2;
-        int y = (getHeight() - size) / 2;
+        Rectangle bounds = getSpinnerBounds();
 
         // 设置抗锯齿
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
         // 绘制旋转的圆形
         g2d.setColor(Color.WHITE);
-        g2d.setStroke(new BasicStroke(5));
-        g2d.drawArc(x, y, size, size, angle, 270); // 根据角度旋转
+        g2d.setStroke(new BasicStroke(SPINNER_STROKE));
+        g2d.drawArc(bounds.x, bounds.y, bounds.width, bounds.height, angle, 270); // 根据角度旋转
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,202 @@
+package github.ag777.common.tool.swing.view.component.loading;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 加载状态,引用计数并延迟显示遮罩
+ * <p>
+ * 任意线程都可以调用{@link #setLoading(boolean)},计数大于0即为加载中。
+ * 计数在0和非0之间切换时才向EDT投递一次更新,切换频繁时尚未执行的更新会合并;
+ * 加载持续超过{@link #setGraceMillis(int) 宽限时间}才显示遮罩,很快结束的调用不会闪烁,
+ * 遮罩一旦显示至少保持{@link #setMinVisibleMillis(int) 最短显示时间}
+ * <p>
+ * 需要在遮罩上显示进行中的任务时使用{@link #begin(String)},返回的{@link LoadingTask}同样计入计数,
+ * 关闭时减1;{@link #setLoading(boolean)}计入的是匿名的计数,两者可以混用
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/19 上午12:40
+ */
+public class LoadingState {
+    /** 默认宽限时间(毫秒) */
+    public static final int DEFAULT_GRACE_MILLIS = 150;
+    /** 默认最短显示时间(毫秒) */
+    public static final int DEFAULT_MIN_VISIBLE_MILLIS = 400;
+
+    private final Component overlay;
+    private final AtomicInteger count;
+    /** 进行中的命名任务 */
+    private final Set<LoadingTask> tasks;
+    /** 是否已有尚未执行的EDT更新 */
+    private final AtomicBoolean updatePending;
+    /** 宽限时间到后显示遮罩 */
+    private final Timer showTimer;
+    /** 最短显示时间到后隐藏遮罩 */
+    private final Timer hideTimer;
+    /** 遮罩显示的时间(毫秒),只在EDT上访问 */
+    private long shownAt;
+    private volatile int graceMillis;
+    private volatile int minVisibleMillis;
+
+    /**
+     * @param overlay 遮罩组件,由本对象控制显示和隐藏
+     */
+    public LoadingState(Component overlay) {
+        this.overlay = overlay;
+        count = new AtomicInteger(0);
+        tasks = ConcurrentHashMap.newKeySet();
+        updatePending = new AtomicBoolean(false);
+        graceMillis = DEFAULT_GRACE_MILLIS;
+        minVisibleMillis = DEFAULT_MIN_VISIBLE_MILLIS;
+        showTimer = new Timer(DEFAULT_GRACE_MILLIS, e -> onGraceElapsed());
+        showTimer.setRepeats(false);
+        hideTimer = new Timer(DEFAULT_MIN_VISIBLE_MILLIS, e -> update());
+        hideTimer.setRepeats(false);
+    }
+
+    /**
+     * @param graceMillis 加载持续多久后才显示遮罩,0表示立即显示
+     */
+    public void setGraceMillis(int graceMillis) {
+        this.graceMillis = Math.max(graceMillis, 0);
+    }
+
+    /**
+     * @param minVisibleMillis 遮罩显示后至少保持的时间
+     */
+    public void setMinVisibleMillis(int minVisibleMillis) {
+        this.minVisibleMillis = Math.max(minVisibleMillis, 0);
+    }
+
+    /**
+     * @return 是否加载中(计数大于0),与遮罩当前是否显示无关
+     */
+    public boolean isLoading() {
+        return count.get() != 0;
+    }
+
+    /**
+     * @return 当前计数
+     */
+    public int getCount() {
+        return count.get();
+    }
+
+    /**
+     * 计数加1或减1,可以在任意线程调用,计数不会小于0
+     *
+     * @param loading 是否开始加载
+     */
+    public void setLoading(boolean loading) {
+        if (loading) {
+            if (count.incrementAndGet() == 1) {
+                postUpdate();
+            }
+        } else {
+            if (count.getAndUpdate(c -> Math.max(c - 1, 0)) == 1) {
+                postUpdate();
+            }
+        }
+    }
+
+    /**
+     * 开始一个命名任务,计数加1,可以在任意线程调用
+     *
+     * @param name 任务名称,显示在遮罩上
+     * @return 任务句柄,关闭时计数减1
+     */
+    public LoadingTask begin(String name) {
+        LoadingTask task = new LoadingTask(this, name);
+        tasks.add(task);
+        setLoading(true);
+        return task;
+    }
+
+    /**
+     * 由{@link LoadingTask#close()}调用
+     */
+    void end(LoadingTask task) {
+        if (tasks.remove(task)) {
+            setLoading(false);
+        }
+    }
+
+    /**
+     * @return 进行中的命名任务,按开始时间排序
+     */
+    public List<LoadingTask> getTasks() {
+        return tasks.stream().sorted(Comparator.comparingLong(LoadingTask::getStartNanos)).toList();
+    }
+
+    /**
+     * 强制清零计数并清空任务
+     */
+    public void reset() {
+        tasks.clear();
+        if (count.getAndSet(0) != 0) {
+            postUpdate();
+        }
+    }
+
+    private void postUpdate() {
+        if (updatePending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                updatePending.set(false);
+                update();
+            });
+        }
+    }
+
+    /**
+     * 在EDT上根据计数和计时决定遮罩是否显示
+     */
+    private void update() {
+        if (count.get() != 0) {
+            hideTimer.stop();
+            if (overlay.isVisible() || showTimer.isRunning()) {
+                return;
+            }
+            int grace = graceMillis;
+            if (grace == 0) {
+                show();
+            } else {
+                showTimer.setInitialDelay(grace);
+                showTimer.restart();
+            }
+            return;
+        }
+        // 宽限时间内就结束了,不显示
+        showTimer.stop();
+        if (!overlay.isVisible()) {
+            return;
+        }
+        long remaining = shownAt + minVisibleMillis - System.currentTimeMillis();
+        if (remaining <= 0) {
+            hideTimer.stop();
+            overlay.setVisible(false);
+        } else if (!hideTimer.isRunning()) {
+            hideTimer.setInitialDelay((int) remaining);
+            hideTimer.restart();
+        }
+    }
+
+    /**
+     * 宽限时间到,仍在加载时显示遮罩
+     */
+    private void onGraceElapsed() {
+        if (count.get() != 0 && !overlay.isVisible()) {
+            show();
+        }
+    }
+
+    private void show() {
+        shownAt = System.currentTimeMillis();
+        overlay.setVisible(true);
+    }
+}
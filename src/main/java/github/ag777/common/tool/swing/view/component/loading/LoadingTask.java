@@ -0,0 +1,65 @@
+package github.ag777.common.tool.swing.view.component.loading;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 正在进行的加载任务
+ * <p>
+ * 由{@link LoadingState#begin(String)}创建,创建时计数加1,{@link #close()}时减1,重复关闭无效,
+ * 可以配合try-with-resources使用。遮罩显示时会列出各任务的名称和已运行时长
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/19 上午1:10
+ */
+public class LoadingTask implements AutoCloseable {
+    private final LoadingState state;
+    private final String name;
+    /** 开始时间({@link System#nanoTime()}) */
+    private final long startNanos;
+    private final AtomicBoolean closed;
+
+    LoadingTask(LoadingState state, String name) {
+        this.state = state;
+        this.name = name;
+        startNanos = System.nanoTime();
+        closed = new AtomicBoolean(false);
+    }
+
+    /**
+     * @return 任务名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 开始时间({@link System#nanoTime()})
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * @return 已运行的毫秒数
+     */
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * @return 是否已结束
+     */
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * 结束任务,可以在任意线程调用
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            state.end(this);
+        }
+    }
+}
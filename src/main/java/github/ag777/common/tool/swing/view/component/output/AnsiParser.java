@@ -0,0 +1,291 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * ANSI转义序列解析器
+ * <p>
+ * 在写入线程中把带转义序列的行解析为纯文本和{@link StyleRuns},界面线程只负责按片段绘制。
+ * 只解释SGR(ESC[...m)中的颜色(16色、256色、24位色)、粗体、斜体、下划线和反显,
+ * 其它CSI/OSC序列(如清屏、光标移动、窗口标题)直接去掉。
+ * 样式和终端一样跨行保持,直到遇到重置(ESC[0m)
+ * <p>
+ * 不含转义字符且当前为默认样式的行不做任何分配,原样交给回调,因此普通输出几乎没有额外开销;
+ * 带转义序列的行与上一行的片段布局相同时共用同一个{@link StyleRuns},每行只分配去掉转义后的文本
+ * <p>
+ * 线程安全,多个线程写入时按调用顺序共用同一个样式状态
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午9:10
+ */
+public class AnsiParser {
+    private static final char ESC = '\u001b';
+    private static final char BEL = '\u0007';
+    /** 单个SGR序列最多解释的参数个数 */
+    private static final int MAX_PARAMS = 32;
+    /** 解析缓冲保留的最大字符数 */
+    private static final int MAX_RETAINED_CHARS = 64 * 1024;
+    /** 单参数SGR的最大参数值(含),用于缓存 */
+    private static final int MAX_SIMPLE_PARAM = 107;
+    /** xterm 256色调色板 */
+    private static final Color[] PALETTE = createPalette();
+
+    /** 当前样式,跨行保持 */
+    private AnsiStyle style;
+    /** 整行只有当前样式时共用的片段,样式变化时重建 */
+    private StyleRuns wholeLine;
+    /** 上一个带转义序列的行生成的片段,下一行的片段完全相同时直接复用 */
+    private StyleRuns lastRuns;
+
+    /* 以下为解析时复用的缓冲,受this同步保护 */
+    private char[] text;
+    private int textLength;
+    private int[] runStarts;
+    private AnsiStyle[] runStyles;
+    private int runCount;
+    private final int[] params;
+    /** 单参数SGR的转换缓存: 当前样式为simpleFrom[p]时,应用参数p得到simpleTo[p] */
+    private final AnsiStyle[] simpleFrom;
+    private final AnsiStyle[] simpleTo;
+
+    public AnsiParser() {
+        style = AnsiStyle.DEFAULT;
+        text = new char[256];
+        runStarts = new int[8];
+        runStyles = new AnsiStyle[8];
+        params = new int[MAX_PARAMS];
+        simpleFrom = new AnsiStyle[MAX_SIMPLE_PARAM + 1];
+        simpleTo = new AnsiStyle[MAX_SIMPLE_PARAM + 1];
+    }
+
+    /**
+     * 解析一行
+     *
+     * @param line 可能带转义序列的行(不含换行符)
+     * @param consumer 接收去掉转义序列后的文本和样式片段,没有样式时片段为null
+     */
+    public synchronized void parse(String line, BiConsumer<String, StyleRuns> consumer) {
+        if (line.indexOf(ESC) < 0) {
+            consumer.accept(line, style.isDefault() ? null : wholeLine());
+            return;
+        }
+        if (text.length < line.length()) {
+            text = new char[Math.max(line.length(), text.length << 1)];
+        }
+        textLength = 0;
+        runCount = 0;
+        int i = 0;
+        int length = line.length();
+        while (i < length) {
+            int esc = line.indexOf(ESC, i);
+            int end = esc < 0 ? length : esc;
+            if (end > i) {
+                addRun();
+                line.getChars(i, end, text, textLength);
+                textLength += end - i;
+            }
+            if (esc < 0) {
+                break;
+            }
+            i = skipEscape(line, esc);
+        }
+        StyleRuns runs = null;
+        if (runCount > 1 || runCount == 1 && !runStyles[0].isDefault()) {
+            runs = sharedRuns();
+        }
+        Arrays.fill(runStyles, 0, runCount, null);
+        String plain = new String(text, 0, textLength);
+        if (text.length > MAX_RETAINED_CHARS) {
+            // 超长行解析完后不保留大缓冲
+            text = new char[256];
+        }
+        consumer.accept(plain, runs);
+    }
+
+    /**
+     * 取得当前缓冲中的片段: 日志类输出的各行往往只有末尾的内容不同,片段布局与上一行相同时复用上一行的实例,
+     * 不再为每行分配数组
+     */
+    private StyleRuns sharedRuns() {
+        if (lastRuns == null || !lastRuns.matches(runStarts, runStyles, runCount)) {
+            lastRuns = new StyleRuns(Arrays.copyOf(runStarts, runCount), Arrays.copyOf(runStyles, runCount));
+        }
+        return lastRuns;
+    }
+
+    private StyleRuns wholeLine() {
+        if (wholeLine == null || wholeLine.style(0) != style) {
+            wholeLine = new StyleRuns(new int[]{0}, new AnsiStyle[]{style});
+        }
+        return wholeLine;
+    }
+
+    /**
+     * 恢复默认样式,清空输出时调用
+     */
+    public synchronized void reset() {
+        style = AnsiStyle.DEFAULT;
+        lastRuns = null;
+    }
+
+    /**
+     * 在当前文本末尾以当前样式开始一个片段,样式没变时沿用上一个片段
+     */
+    private void addRun() {
+        if (runCount > 0 && runStyles[runCount - 1] == style) {
+            return;
+        }
+        if (runCount == runStarts.length) {
+            runStarts = Arrays.copyOf(runStarts, runCount << 1);
+            runStyles = Arrays.copyOf(runStyles, runCount << 1);
+        }
+        runStarts[runCount] = textLength;
+        runStyles[runCount] = style;
+        runCount++;
+    }
+
+    /**
+     * 跳过一个转义序列,是SGR时更新当前样式
+     *
+     * @param index 转义字符的位置
+     * @return 序列之后的位置
+     */
+    private int skipEscape(String line, int index) {
+        int length = line.length();
+        if (index + 1 >= length) {
+            return length;
+        }
+        char type = line.charAt(index + 1);
+        if (type == '[') {
+            // CSI: 参数字节和中间字节之后是一个结束字节
+            int j = index + 2;
+            while (j < length && line.charAt(j) >= 0x20 && line.charAt(j) <= 0x3F) {
+                j++;
+            }
+            if (j >= length) {
+                return length;
+            }
+            if (line.charAt(j) == 'm') {
+                applySgr(line, index + 2, j);
+            }
+            return j + 1;
+        }
+        if (type == ']') {
+            // OSC: 以BEL或ESC\结束
+            for (int j = index + 2; j < length; j++) {
+                char c = line.charAt(j);
+                if (c == BEL) {
+                    return j + 1;
+                }
+                if (c == ESC) {
+                    return j + 1 < length && line.charAt(j + 1) == '\\' ? j + 2 : j;
+                }
+            }
+            return length;
+        }
+        return index + 2;
+    }
+
+    private void applySgr(String line, int from, int to) {
+        int count = 0;
+        int value = 0;
+        for (int i = from; i <= to && count < MAX_PARAMS; i++) {
+            char c = i < to ? line.charAt(i) : ';';
+            if (c >= '0' && c <= '9') {
+                value = Math.min(value * 10 + (c - '0'), 0xFFFF);
+            } else if (c == ';' || c == ':') {
+                params[count++] = value;
+                value = 0;
+            }
+        }
+        if (count == 1 && params[0] <= MAX_SIMPLE_PARAM) {
+            // 最常见的单参数序列(如ESC[32m)走缓存,避免反复查样式池
+            int p = params[0];
+            if (simpleFrom[p] != style) {
+                simpleFrom[p] = style;
+                simpleTo[p] = apply(style, params, count);
+            }
+            style = simpleTo[p];
+            return;
+        }
+        style = apply(style, params, count);
+    }
+
+    private static AnsiStyle apply(AnsiStyle s, int[] params, int count) {
+        for (int k = 0; k < count; k++) {
+            int p = params[k];
+            if (p == 0) {
+                s = AnsiStyle.DEFAULT;
+            } else if (p == 1) {
+                s = s.withFlag(AnsiStyle.BOLD, true);
+            } else if (p == 3) {
+                s = s.withFlag(AnsiStyle.ITALIC, true);
+            } else if (p == 4) {
+                s = s.withFlag(AnsiStyle.UNDERLINE, true);
+            } else if (p == 7) {
+                s = s.withFlag(AnsiStyle.INVERSE, true);
+            } else if (p == 22) {
+                s = s.withFlag(AnsiStyle.BOLD, false);
+            } else if (p == 23) {
+                s = s.withFlag(AnsiStyle.ITALIC, false);
+            } else if (p == 24) {
+                s = s.withFlag(AnsiStyle.UNDERLINE, false);
+            } else if (p == 27) {
+                s = s.withFlag(AnsiStyle.INVERSE, false);
+            } else if (p >= 30 && p <= 37) {
+                s = s.withForeground(PALETTE[p - 30]);
+            } else if (p >= 90 && p <= 97) {
+                s = s.withForeground(PALETTE[p - 90 + 8]);
+            } else if (p >= 40 && p <= 47) {
+                s = s.withBackground(PALETTE[p - 40]);
+            } else if (p >= 100 && p <= 107) {
+                s = s.withBackground(PALETTE[p - 100 + 8]);
+            } else if (p == 39) {
+                s = s.withForeground(null);
+            } else if (p == 49) {
+                s = s.withBackground(null);
+            } else if ((p == 38 || p == 48) && k + 1 < count) {
+                Color color = null;
+                if (params[k + 1] == 5 && k + 2 < count) {
+                    color = PALETTE[params[k + 2] & 0xFF];
+                    k += 2;
+                } else if (params[k + 1] == 2 && k + 4 < count) {
+                    color = new Color(params[k + 2] & 0xFF, params[k + 3] & 0xFF, params[k + 4] & 0xFF);
+                    k += 4;
+                } else {
+                    k++;
+                }
+                if (color != null) {
+                    s = p == 38 ? s.withForeground(color) : s.withBackground(color);
+                }
+            }
+        }
+        return s;
+    }
+
+    private static Color[] createPalette() {
+        Color[] palette = new Color[256];
+        int[][] base = {
+                {0, 0, 0}, {205, 0, 0}, {0, 205, 0}, {205, 205, 0},
+                {0, 0, 238}, {205, 0, 205}, {0, 205, 205}, {229, 229, 229},
+                {127, 127, 127}, {255, 0, 0}, {0, 255, 0}, {255, 255, 0},
+                {92, 92, 255}, {255, 0, 255}, {0, 255, 255}, {255, 255, 255}
+        };
+        for (int i = 0; i < 16; i++) {
+            palette[i] = new Color(base[i][0], base[i][1], base[i][2]);
+        }
+        // 6x6x6色立方
+        int[] levels = {0, 95, 135, 175, 215, 255};
+        for (int i = 0; i < 216; i++) {
+            palette[16 + i] = new Color(levels[i / 36], levels[i / 6 % 6], levels[i % 6]);
+        }
+        // 24级灰度
+        for (int i = 0; i < 24; i++) {
+            int v = 8 + i * 10;
+            palette[232 + i] = new Color(v, v, v);
+        }
+        return palette;
+    }
+}
@@ -0,0 +1,76 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import java.awt.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ANSI SGR样式(前景色、背景色和字形标志)
+ * <p>
+ * 实例不可变,通过{@link #of(Color, Color, int)}从全局池中取得,相同的样式共用同一个实例,
+ * 因此每行的样式片段只保存引用,海量输出时也只有少量样式对象。
+ * 池的大小有上限,超出后(如大量不同的24位色)不再入池,直接创建新实例
+ *
+ * @param foreground 前景色,null表示使用组件默认前景色
+ * @param background 背景色,null表示不填充
+ * @param flags 字形标志,{@link #BOLD}等的组合
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午9:10
+ */
+public record AnsiStyle(Color foreground, Color background, int flags) {
+    public static final int BOLD = 1;
+    public static final int ITALIC = 1 << 1;
+    public static final int UNDERLINE = 1 << 2;
+    /** 前景色和背景色互换 */
+    public static final int INVERSE = 1 << 3;
+
+    /** 样式池的最大数量 */
+    private static final int MAX_POOL_SIZE = 1024;
+    private static final ConcurrentHashMap<AnsiStyle, AnsiStyle> POOL = new ConcurrentHashMap<>();
+
+    /** 默认样式 */
+    public static final AnsiStyle DEFAULT = of(null, null, 0);
+
+    /**
+     * 从样式池中获取样式
+     *
+     * @param foreground 前景色,null表示默认
+     * @param background 背景色,null表示默认
+     * @param flags 字形标志
+     * @return 池中的共享实例
+     */
+    public static AnsiStyle of(Color foreground, Color background, int flags) {
+        AnsiStyle style = new AnsiStyle(foreground, background, flags);
+        AnsiStyle pooled = POOL.get(style);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (POOL.size() >= MAX_POOL_SIZE) {
+            return style;
+        }
+        pooled = POOL.putIfAbsent(style, style);
+        return pooled == null ? style : pooled;
+    }
+
+    public AnsiStyle withForeground(Color foreground) {
+        return of(foreground, background, flags);
+    }
+
+    public AnsiStyle withBackground(Color background) {
+        return of(foreground, background, flags);
+    }
+
+    public AnsiStyle withFlag(int flag, boolean on) {
+        return of(foreground, background, on ? flags | flag : flags & ~flag);
+    }
+
+    public boolean is(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * @return 是否和默认样式一样绘制
+     */
+    public boolean isDefault() {
+        return this == DEFAULT || foreground == null && background == null && flags == 0;
+    }
+}
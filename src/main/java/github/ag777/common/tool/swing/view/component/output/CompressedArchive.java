@@ -0,0 +1,258 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 压缩在内存中的历史行归档
+ * <p>
+ * 被淘汰的行先进入未压缩的尾块,每满{@value #BLOCK_LINES}行以最快的Deflate级别压缩为一个不可变的字节块。
+ * 日志文本通常能压缩到原来的1/5~1/10,同样的堆内存可以保留多得多的历史,也不需要临时文件
+ * <p>
+ * 读取时整块解压,只缓存最近访问的{@value #MAX_DECODED_BLOCKS}个解压块(LRU),
+ * 因此回看历史时滚动经过的块会被解压,离开后自然淘汰,解压后的内存占用有上限
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午10:20
+ */
+@Slf4j
+public class CompressedArchive implements LineArchive {
+    /** 每个压缩块的行数 */
+    private static final int BLOCK_LINES = 4096;
+    /** 最多缓存的解压块数 */
+    private static final int MAX_DECODED_BLOCKS = 4;
+
+    private final Deflater deflater;
+    private final Inflater inflater;
+    /** 已压缩的块,按顺序存放 */
+    private final List<Block> blocks;
+    /** 尚未压缩的尾块 */
+    private final List<String> tail;
+    /** 最近访问的解压块,key为块序号 */
+    private final Map<Integer, String[]> decoded;
+
+    /** 压缩前的编码缓冲,压缩一块时复用 */
+    private byte[] raw;
+    /** 压缩输出缓冲,压缩一块时复用 */
+    private byte[] compressed;
+    private long lineCount;
+    private long rawBytes;
+    private long compressedBytes;
+
+    public CompressedArchive() {
+        deflater = new Deflater(Deflater.BEST_SPEED);
+        inflater = new Inflater();
+        blocks = new ArrayList<>();
+        tail = new ArrayList<>(BLOCK_LINES);
+        decoded = new LinkedHashMap<>(MAX_DECODED_BLOCKS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, String[]> eldest) {
+                return size() > MAX_DECODED_BLOCKS;
+            }
+        };
+        raw = new byte[64 * 1024];
+        compressed = new byte[16 * 1024];
+    }
+
+    @Override
+    public void append(String line) {
+        tail.add(line);
+        lineCount++;
+        if (tail.size() == BLOCK_LINES) {
+            compressTail();
+        }
+    }
+
+    @Override
+    public String get(long index) {
+        if (index < 0 || index >= lineCount) {
+            return null;
+        }
+        int block = (int) (index / BLOCK_LINES);
+        int offset = (int) (index % BLOCK_LINES);
+        if (block == blocks.size()) {
+            return tail.get(offset);
+        }
+        String[] lines = decodedBlock(block);
+        return lines == null ? null : lines[offset];
+    }
+
+    @Override
+    public int read(long index, String[] dest, int destPos, int length) {
+        if (index < 0) {
+            return 0;
+        }
+        int count = (int) Math.max(0, Math.min(length, lineCount - index));
+        int done = 0;
+        while (done < count) {
+            long current = index + done;
+            int block = (int) (current / BLOCK_LINES);
+            int offset = (int) (current % BLOCK_LINES);
+            int n = Math.min(count - done, BLOCK_LINES - offset);
+            if (block == blocks.size()) {
+                for (int i = 0; i < n; i++) {
+                    dest[destPos + done + i] = tail.get(offset + i);
+                }
+            } else {
+                String[] lines = decodedBlock(block);
+                if (lines == null) {
+                    return done;
+                }
+                System.arraycopy(lines, offset, dest, destPos + done, n);
+            }
+            done += n;
+        }
+        return count;
+    }
+
+    @Override
+    public long size() {
+        return lineCount;
+    }
+
+    /**
+     * @return 已压缩块压缩前的字节数(UTF-8)
+     */
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * @return 已压缩块占用的字节数
+     */
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    @Override
+    public void clear() {
+        blocks.clear();
+        tail.clear();
+        decoded.clear();
+        lineCount = 0;
+        rawBytes = 0;
+        compressedBytes = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        deflater.end();
+        inflater.end();
+    }
+
+    /**
+     * 把尾块编码为"长度+UTF-8字节"的序列后压缩
+     */
+    private void compressTail() {
+        int size = 0;
+        for (String line : tail) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            size = ensureRaw(size, bytes.length + 5);
+            size = writeVarInt(raw, size, bytes.length);
+            System.arraycopy(bytes, 0, raw, size, bytes.length);
+            size += bytes.length;
+        }
+        deflater.reset();
+        deflater.setInput(raw, 0, size);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, length << 1);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        blocks.add(new Block(Arrays.copyOf(compressed, length), size));
+        rawBytes += size;
+        compressedBytes += length;
+        tail.clear();
+        if (raw.length > 4 * 1024 * 1024) {
+            // 压缩过超长行后不长期占用大数组
+            raw = new byte[64 * 1024];
+        }
+    }
+
+    /**
+     * 获取解压后的块,不在缓存中时解压并放入缓存
+     *
+     * @return 块内所有行,解压失败时返回null
+     */
+    private String[] decodedBlock(int index) {
+        String[] lines = decoded.get(index);
+        if (lines != null) {
+            return lines;
+        }
+        Block block = blocks.get(index);
+        byte[] bytes = new byte[block.rawLength];
+        try {
+            inflater.reset();
+            inflater.setInput(block.data);
+            int length = 0;
+            while (length < bytes.length && !inflater.finished()) {
+                length += inflater.inflate(bytes, length, bytes.length - length);
+            }
+        } catch (DataFormatException e) {
+            log.warn("解压历史输出失败,块序号: {}", index, e);
+            return null;
+        }
+        lines = new String[BLOCK_LINES];
+        int[] pos = {0};
+        for (int i = 0; i < BLOCK_LINES; i++) {
+            int len = readVarInt(bytes, pos);
+            lines[i] = new String(bytes, pos[0], len, StandardCharsets.UTF_8);
+            pos[0] += len;
+        }
+        decoded.put(index, lines);
+        return lines;
+    }
+
+    private int ensureRaw(int size, int extra) {
+        if (size + extra > raw.length) {
+            raw = Arrays.copyOf(raw, Math.max(raw.length << 1, size + extra));
+        }
+        return size;
+    }
+
+    private static int writeVarInt(byte[] dest, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            dest[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        dest[pos++] = (byte) value;
+        return pos;
+    }
+
+    /**
+     * @param pos 读取位置,读完后指向下一个字节
+     */
+    private static int readVarInt(byte[] src, int[] pos) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = src[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * 压缩块
+     *
+     * @param data 压缩后的字节
+     * @param rawLength 压缩前的字节数
+     */
+    private record Block(byte[] data, int rawLength) {
+    }
+}
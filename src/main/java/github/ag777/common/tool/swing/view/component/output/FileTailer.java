@@ -0,0 +1,253 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import github.ag777.common.tool.swing.view.component.OutputArea;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * 跟踪文件新增内容并输出到{@link OutputArea}(类似tail -F)
+ * <p>
+ * 通过FileChannel的读取位置只读新追加的字节,解码后的行走输出区域的按帧合并通道。
+ * 由WatchService监听所在目录唤醒,同时每{@value #POLL_MILLIS}毫秒轮询一次,
+ * 兼容不支持文件通知的文件系统(如网络盘)
+ * <ul>
+ *     <li>截断: 文件变小时从头重新读取</li>
+ *     <li>轮转: 路径指向了新文件(文件标识变化)时,先读完旧文件剩余内容再从头读取新文件</li>
+ *     <li>文件不存在: 等待文件出现</li>
+ * </ul>
+ * 输出区域积压的行数过多时暂停读取,跟踪大文件时内存不会无限增长
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午7:00
+ */
+@Slf4j
+public class FileTailer {
+    /** 轮询间隔(毫秒),也是WatchService等待的超时时间 */
+    private static final long POLL_MILLIS = 1000;
+    /** 读取缓冲大小 */
+    private static final int BYTE_BUFFER_SIZE = 64 * 1024;
+    /** 积压时的等待间隔(毫秒) */
+    private static final long BACKPRESSURE_WAIT_MILLIS = 5;
+
+    private final Path file;
+    private final OutputArea outputArea;
+    private final LineDecoder decoder;
+    private final ByteBuffer bytes;
+
+    private volatile boolean stopped;
+    private volatile Thread thread;
+    private WatchService watchService;
+
+    private FileChannel channel;
+    /** 打开的文件的标识,用于识别轮转 */
+    private Object fileKey;
+
+    /**
+     * @param file 要跟踪的文件
+     * @param charset 文件编码
+     * @param outputArea 输出区域
+     */
+    public FileTailer(Path file, Charset charset, OutputArea outputArea) {
+        this.file = file.toAbsolutePath();
+        this.outputArea = outputArea;
+        decoder = new LineDecoder(charset, this::deliver);
+        bytes = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+    }
+
+    /**
+     * 开始跟踪,从文件开头读起
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = Thread.ofVirtual().name("output-tail").start(this::run);
+    }
+
+    /**
+     * 停止跟踪,可以在任意线程调用
+     */
+    public void stop() {
+        stopped = true;
+        WatchService ws = watchService;
+        if (ws != null) {
+            try {
+                ws.close();
+            } catch (IOException ignored) {
+            }
+        }
+        Thread t = thread;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            watchService = openWatchService();
+            while (!stopped) {
+                if (channel == null) {
+                    open();
+                }
+                if (channel != null) {
+                    readAppended();
+                    checkTruncateOrRotate();
+                }
+                if (!stopped) {
+                    await();
+                }
+            }
+        } catch (InterruptedException | ClosedByInterruptException e) {
+            // 停止跟踪
+        } catch (Exception e) {
+            log.warn("跟踪文件失败: {}", file, e);
+        } finally {
+            closeChannel();
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private WatchService openWatchService() {
+        Path dir = file.getParent();
+        try {
+            WatchService ws = file.getFileSystem().newWatchService();
+            dir.register(ws, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            return ws;
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("无法监听目录{},改为轮询", dir, e);
+            return null;
+        }
+    }
+
+    /**
+     * 等待目录变化或轮询超时
+     */
+    private void await() throws InterruptedException {
+        if (watchService == null) {
+            Thread.sleep(POLL_MILLIS);
+            return;
+        }
+        try {
+            WatchKey key = watchService.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (key != null) {
+                // 不区分是哪个文件的事件,醒来后统一检查
+                key.pollEvents();
+                key.reset();
+            }
+        } catch (ClosedWatchServiceException e) {
+            stopped = true;
+        }
+    }
+
+    private void open() throws IOException {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            fileKey = keyOf(Files.readAttributes(file, BasicFileAttributes.class));
+            decoder.reset();
+        } catch (NoSuchFileException e) {
+            closeChannel();
+        }
+    }
+
+    /**
+     * 从当前位置读到文件末尾
+     */
+    private void readAppended() throws IOException, InterruptedException {
+        while (!stopped && channel.read(bytes) > 0) {
+            bytes.flip();
+            decoder.decode(bytes);
+            bytes.compact();
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private void checkTruncateOrRotate() throws IOException, InterruptedException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // 文件被删除或改名,等新文件出现;旧文件剩余内容已在本轮读完
+            return;
+        }
+        if (!Objects.equals(fileKey, keyOf(attributes))) {
+            // 轮转: 读完旧文件再切换
+            readAppended();
+            finishLine();
+            closeChannel();
+            open();
+            return;
+        }
+        if (attributes.size() < channel.position()) {
+            // 截断: 丢弃未结束的行,从头开始
+            outputArea.appendLine("--- 文件被截断，从头读取 ---");
+            bytes.clear();
+            decoder.reset();
+            channel.position(0);
+        }
+    }
+
+    /**
+     * 文件标识,文件系统不提供时(如Windows)退化为创建时间
+     */
+    private static Object keyOf(BasicFileAttributes attributes) {
+        Object key = attributes.fileKey();
+        return key != null ? key : attributes.creationTime();
+    }
+
+    /**
+     * 输出旧文件最后一行未换行的内容
+     */
+    private void finishLine() {
+        bytes.flip();
+        decoder.finish(bytes);
+        bytes.clear();
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+    private void deliver(String line) {
+        while (!stopped && outputArea.getPendingLineCount() >= ProcessRunner.DEFAULT_MAX_PENDING_LINES) {
+            try {
+                Thread.sleep(BACKPRESSURE_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        outputArea.appendLine(line);
+    }
+}
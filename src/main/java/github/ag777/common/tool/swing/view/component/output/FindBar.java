@@ -0,0 +1,221 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import github.ag777.common.tool.swing.model.Theme;
+import github.ag777.common.tool.swing.util.ui.layout.FlowLayoutHelper;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 输出区域的查找栏
+ * <p>
+ * 输入时延迟{@value #DEBOUNCE_MILLIS}毫秒后在后台开始搜索,新的输入会中止上一次扫描;
+ * 回车/Shift+回车在匹配之间前后跳转,Esc关闭。只对可见行绘制高亮
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午3:00
+ */
+public class FindBar extends JPanel {
+    /** 输入防抖时间(毫秒) */
+    private static final int DEBOUNCE_MILLIS = 150;
+
+    private final LineView lineView;
+    private final LineSearcher searcher;
+
+    private final JTextField tfQuery;
+    private final JCheckBox cbRegex;
+    private final JCheckBox cbMatchCase;
+    private final JLabel lbStatus;
+    private final Timer debounce;
+    private final Color defaultQueryBackground;
+
+    /** 当前匹配所在的行序号,-1表示还没有定位 */
+    private long currentSeq = -1;
+
+    public FindBar(LineStore store, LineIndex index, LineView lineView) {
+        this.lineView = lineView;
+        searcher = new LineSearcher(store, index, this::onSearchUpdate);
+
+        tfQuery = new JTextField(20);
+        defaultQueryBackground = tfQuery.getBackground();
+        cbRegex = new JCheckBox("正则");
+        cbMatchCase = new JCheckBox("区分大小写");
+        lbStatus = new JLabel();
+        JButton btnPrevious = new JButton("上一个");
+        JButton btnNext = new JButton("下一个");
+        JButton btnClose = new JButton("关闭");
+
+        debounce = new Timer(DEBOUNCE_MILLIS, e -> runSearch());
+        debounce.setRepeats(false);
+
+        FlowLayoutHelper.newInstance(this)
+                .alignLeft()
+                .add(new JLabel("查找:"))
+                .add(tfQuery)
+                .add(cbRegex)
+                .add(cbMatchCase)
+                .add(btnPrevious)
+                .add(btnNext)
+                .add(lbStatus)
+                .add(btnClose);
+        setVisible(false);
+
+        tfQuery.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+        });
+        cbRegex.addActionListener(e -> runSearch());
+        cbMatchCase.addActionListener(e -> runSearch());
+        btnPrevious.addActionListener(e -> previous());
+        btnNext.addActionListener(e -> next());
+        btnClose.addActionListener(e -> close());
+
+        InputMap inputMap = tfQuery.getInputMap(WHEN_FOCUSED);
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "next");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, InputEvent.SHIFT_DOWN_MASK), "previous");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "close");
+        tfQuery.getActionMap().put("next", action(this::next));
+        tfQuery.getActionMap().put("previous", action(this::previous));
+        tfQuery.getActionMap().put("close", action(this::close));
+    }
+
+    /**
+     * 显示查找栏并聚焦输入框
+     */
+    public void open() {
+        if (!isVisible()) {
+            setVisible(true);
+            revalidate();
+            if (!tfQuery.getText().isEmpty()) {
+                runSearch();
+            }
+        }
+        tfQuery.selectAll();
+        tfQuery.requestFocusInWindow();
+    }
+
+    /**
+     * 关闭查找栏并清除搜索
+     */
+    public void close() {
+        debounce.stop();
+        searcher.clear();
+        currentSeq = -1;
+        lineView.setHighlight(null, -1);
+        setVisible(false);
+        revalidate();
+        lineView.requestFocusInWindow();
+    }
+
+    /**
+     * 新行写入后调用,继续增量搜索
+     */
+    public void linesAppended() {
+        if (isVisible()) {
+            searcher.linesAppended();
+        }
+    }
+
+    /**
+     * 跳转到下一个匹配
+     */
+    public void next() {
+        jump(searcher.next(currentSeq >= 0 ? currentSeq : lineView.firstVisibleSeq() - 1));
+    }
+
+    /**
+     * 跳转到上一个匹配
+     */
+    public void previous() {
+        jump(searcher.previous(currentSeq >= 0 ? currentSeq : lineView.firstVisibleSeq()));
+    }
+
+    /**
+     * 释放后台搜索线程
+     */
+    public void dispose() {
+        debounce.stop();
+        searcher.shutdown();
+    }
+
+    private void runSearch() {
+        debounce.stop();
+        currentSeq = -1;
+        try {
+            searcher.search(tfQuery.getText(), cbRegex.isSelected(), !cbMatchCase.isSelected());
+            tfQuery.setBackground(defaultQueryBackground);
+        } catch (PatternSyntaxException e) {
+            searcher.clear();
+            tfQuery.setBackground(Theme.COLOR_ERROR);
+            lbStatus.setText("正则表达式有误");
+        }
+        lineView.setHighlight(searcher.getPattern(), -1);
+    }
+
+    private void jump(long seq) {
+        if (seq < 0) {
+            return;
+        }
+        currentSeq = seq;
+        lineView.setHighlight(searcher.getPattern(), seq);
+        lineView.scrollToSeq(seq);
+        refreshStatus();
+    }
+
+    /**
+     * 搜索结果变化时在EDT上回调
+     */
+    private void onSearchUpdate() {
+        if (currentSeq < 0 && searcher.getMatchCount() > 0) {
+            // 第一次出结果时自动定位到可见区域之后的第一个匹配
+            next();
+            return;
+        }
+        refreshStatus();
+        lineView.repaint();
+    }
+
+    private void refreshStatus() {
+        if (searcher.getPattern() == null) {
+            if (tfQuery.getBackground() == defaultQueryBackground) {
+                lbStatus.setText("");
+            }
+            return;
+        }
+        int count = searcher.getMatchCount();
+        String suffix = searcher.isScanning() ? " (搜索中...)" : "";
+        if (count == 0) {
+            lbStatus.setText("无结果" + suffix);
+            return;
+        }
+        int index = currentSeq >= 0 ? searcher.indexOfMatch(currentSeq) : -1;
+        lbStatus.setText((index >= 0 ? (index + 1) + "/" : "共") + count + "项" + suffix);
+    }
+
+    private static Action action(Runnable runnable) {
+        return new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                runnable.run();
+            }
+        };
+    }
+}
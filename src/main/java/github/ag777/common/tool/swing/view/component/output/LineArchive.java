@@ -0,0 +1,63 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import java.io.Closeable;
+
+/**
+ * 历史行归档
+ * <p>
+ * {@link LineStore}在内存中只保留最近的行,被淘汰的旧行交给归档保存,
+ * 查看历史时再按下标读回。实现类只会在{@link LineStore}的锁内被调用,自身无需再做同步
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 上午11:10
+ */
+public interface LineArchive extends Closeable {
+
+    /**
+     * 追加一行到归档末尾
+     *
+     * @param line 行内容
+     */
+    void append(String line);
+
+    /**
+     * 读取归档中的一行
+     *
+     * @param index 归档内下标,从0开始
+     * @return 行内容,读取失败时返回null
+     */
+    String get(long index);
+
+    /**
+     * 批量顺序读取,默认逐行调用{@link #get(long)},实现类可以覆盖以避免每行重新定位
+     *
+     * @param index 起始下标
+     * @param dest 目标数组
+     * @param destPos 目标数组的起始位置
+     * @param length 最多读取的行数
+     * @return 实际读取的行数,读取失败时可能少于请求的行数
+     */
+    default int read(long index, String[] dest, int destPos, int length) {
+        int count = (int) Math.max(0, Math.min(length, size() - index));
+        for (int i = 0; i < count; i++) {
+            dest[destPos + i] = get(index + i);
+        }
+        return count;
+    }
+
+    /**
+     * @return 归档中的行数
+     */
+    long size();
+
+    /**
+     * 清空归档
+     */
+    void clear();
+
+    /**
+     * 释放资源,不抛出受检异常
+     */
+    @Override
+    void close();
+}
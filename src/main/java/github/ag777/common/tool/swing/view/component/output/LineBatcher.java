@@ -0,0 +1,458 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按帧合并的行缓冲区(多生产者,单消费者)
+ * <p>
+ * 任意线程通过{@link #offer(String)}无锁写入队列,
+ * EDT上的定时器每隔一帧(默认30ms)统一取出队列中的行交给{@link FlushHandler},
+ * 从而保证每帧只做一次文档插入和至多一次滚动,不会因为海量的invokeLater把EDT堵死
+ * <p>
+ * 队列为空且超过1秒没有新数据时定时器自动停止,有新数据写入时重新启动
+ * <p>
+ * 开启折叠后,生产者在写入时就和上一行比较(可选先把数字统一掩码),
+ * 连续相同的行不再入队,只累加重复次数,随下一帧一起交给处理器原地更新计数
+ * <p>
+ * 带样式的行(已由写入线程解析好的{@link StyleRuns})与行一起入队,按帧与行一一对应交给处理器
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 上午9:20
+ */
+public class LineBatcher {
+    /** 默认帧间隔(毫秒) */
+    public static final int DEFAULT_INTERVAL = 30;
+    /** 默认单帧最多处理的行数,避免积压过多时单帧占用EDT过久 */
+    public static final int DEFAULT_MAX_LINES_PER_TICK = 20000;
+    /** 空闲多久后停止定时器(毫秒) */
+    private static final long IDLE_STOP_MILLIS = 1000;
+
+    /** 元素为行(String)、带样式的行(Styled)或上一行的重复次数(Repeat) */
+    private final ConcurrentLinkedQueue<Object> queue;
+    /** ConcurrentLinkedQueue.size()是O(n)的,这里单独计数 */
+    private final AtomicInteger queueDepth;
+    private final Timer timer;
+    private final FlushHandler handler;
+    /** clear与定时器取数据之间互斥,保证清空前后写入的行不会错序 */
+    private final Object drainLock;
+    /** 每帧复用的批次列表,只在EDT上访问 */
+    private final List<String> batch;
+    /** 每帧复用的重复次数,与batch一一对应,只在EDT上访问 */
+    private int[] batchRepeats;
+    /** 每帧复用的样式片段,与batch一一对应,只在EDT上访问 */
+    private StyleRuns[] batchStyles;
+    /** 折叠状态锁,保证比较上一行与入队的原子性 */
+    private final Object foldLock;
+
+    private volatile boolean folding;
+    private volatile boolean maskDigits;
+    /** 最近入队的行(掩码后),受foldLock保护 */
+    private String lastKey;
+    /** 最近入队的行尚未交给处理器的重复次数,受foldLock保护 */
+    private int pendingRepeats;
+    /** 累计折叠掉的行数 */
+    private volatile long foldedCount;
+
+    private volatile int maxLinesPerTick;
+    /** 是否需要在下一帧先清空再追加,受drainLock保护 */
+    private boolean resetPending;
+
+    /* 以下统计字段只在EDT上写 */
+    private volatile long deliveredCount;
+    private volatile double linesPerSecond;
+    private long windowStart;
+    private long windowDelivered;
+    private long lastDeliverTime;
+
+    public LineBatcher(FlushHandler handler) {
+        this.handler = handler;
+        queue = new ConcurrentLinkedQueue<>();
+        queueDepth = new AtomicInteger(0);
+        drainLock = new Object();
+        batch = new ArrayList<>();
+        batchRepeats = new int[16];
+        batchStyles = new StyleRuns[16];
+        foldLock = new Object();
+        maxLinesPerTick = DEFAULT_MAX_LINES_PER_TICK;
+        timer = new Timer(DEFAULT_INTERVAL, e -> tick());
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * 设置帧间隔
+     *
+     * @param intervalMillis 帧间隔(毫秒),建议16~50
+     */
+    public void setInterval(int intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("帧间隔必须大于0");
+        }
+        timer.setDelay(intervalMillis);
+        timer.setInitialDelay(intervalMillis);
+    }
+
+    /**
+     * 设置单帧最多处理的行数,剩余的行留到下一帧
+     *
+     * @param maxLinesPerTick 单帧最多处理的行数
+     */
+    public void setMaxLinesPerTick(int maxLinesPerTick) {
+        if (maxLinesPerTick <= 0) {
+            throw new IllegalArgumentException("单帧处理行数必须大于0");
+        }
+        this.maxLinesPerTick = maxLinesPerTick;
+    }
+
+    /**
+     * 设置是否折叠连续重复的行
+     *
+     * @param folding 是否折叠
+     * @param maskDigits 比较前是否把数字统一掩码(如时间戳、计数不同的状态行也视为相同)
+     */
+    public void setFolding(boolean folding, boolean maskDigits) {
+        synchronized (foldLock) {
+            if (pendingRepeats > 0) {
+                // 还在累加的重复次数先入队,关闭折叠后定时器不再读取pendingRepeats
+                queue.offer(new Repeat(pendingRepeats));
+                pendingRepeats = 0;
+                ensureRunning();
+            }
+            this.folding = folding;
+            this.maskDigits = maskDigits;
+            lastKey = null;
+        }
+    }
+
+    /**
+     * @return 累计折叠掉(没有入队)的行数
+     */
+    public long getFoldedCount() {
+        return foldedCount;
+    }
+
+    /**
+     * 写入一行,可以在任意线程调用
+     *
+     * @param line 行内容
+     */
+    public void offer(String line) {
+        offer(line, null);
+    }
+
+    /**
+     * 写入一行带样式的行,可以在任意线程调用
+     *
+     * @param line 行内容(不含转义序列)
+     * @param runs 样式片段,null表示没有样式
+     */
+    public void offer(String line, StyleRuns runs) {
+        Object item = toItem(line, runs);
+        if (folding) {
+            if (!offerFolding(line, item)) {
+                return;
+            }
+        } else {
+            queue.offer(item);
+        }
+        queueDepth.incrementAndGet();
+        ensureRunning();
+    }
+
+    /**
+     * 一次写入多行,可以在任意线程调用
+     * <p>
+     * 与逐行调用{@link #offer(String, StyleRuns)}的结果相同(顺序、折叠和清空都一致),
+     * 但折叠模式下整批只加一次锁
+     *
+     * @param lines 行内容(不含转义序列)
+     * @param styles 每行的样式片段(下标与lines对应),null表示整批都没有样式
+     */
+    public void offerAll(List<String> lines, List<StyleRuns> styles) {
+        int size = lines.size();
+        if (size == 0) {
+            return;
+        }
+        int offered = 0;
+        if (folding) {
+            synchronized (foldLock) {
+                for (int i = 0; i < size; i++) {
+                    String line = lines.get(i);
+                    if (offerFoldingLocked(maskDigits ? maskDigits(line) : line, toItem(line, styles == null ? null : styles.get(i)))) {
+                        offered++;
+                    }
+                }
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                queue.offer(toItem(lines.get(i), styles == null ? null : styles.get(i)));
+            }
+            offered = size;
+        }
+        if (offered > 0) {
+            queueDepth.addAndGet(offered);
+        }
+        ensureRunning();
+    }
+
+    private static Object toItem(String line, StyleRuns runs) {
+        return runs == null ? line : new Styled(line, runs);
+    }
+
+    /**
+     * 折叠模式下写入一行,按文本比较,样式不同的相同文本也会折叠
+     *
+     * @param line 行内容
+     * @param item 要入队的元素
+     * @return 是否入队了新行,与上一行相同时只累加重复次数并返回false
+     */
+    private boolean offerFolding(String line, Object item) {
+        String key = maskDigits ? maskDigits(line) : line;
+        synchronized (foldLock) {
+            return offerFoldingLocked(key, item);
+        }
+    }
+
+    /**
+     * 在持有foldLock时写入一行
+     *
+     * @param key 比较用的键(掩码后)
+     * @param item 要入队的元素
+     * @return 是否入队了新行
+     */
+    private boolean offerFoldingLocked(String key, Object item) {
+        if (key.equals(lastKey)) {
+            pendingRepeats++;
+            foldedCount++;
+            ensureRunning();
+            return false;
+        }
+        if (pendingRepeats > 0) {
+            // 上一行的重复次数必须排在新行之前
+            queue.offer(new Repeat(pendingRepeats));
+            pendingRepeats = 0;
+        }
+        lastKey = key;
+        queue.offer(item);
+        return true;
+    }
+
+    /**
+     * 把所有数字替换为0,没有数字时返回原字符串
+     */
+    private static String maskDigits(String line) {
+        char[] chars = null;
+        for (int i = 0, len = line.length(); i < len; i++) {
+            if (Character.isDigit(line.charAt(i))) {
+                if (chars == null) {
+                    chars = line.toCharArray();
+                }
+                chars[i] = '0';
+            }
+        }
+        return chars == null ? line : new String(chars);
+    }
+
+    /**
+     * 丢弃所有尚未输出的行,并让下一帧先清空显示内容
+     * <p>
+     * 调用之后写入的行会在清空之后追加,可以在任意线程调用
+     */
+    public void reset() {
+        synchronized (drainLock) {
+            synchronized (foldLock) {
+                Object item;
+                while ((item = queue.poll()) != null) {
+                    if (!(item instanceof Repeat)) {
+                        queueDepth.decrementAndGet();
+                    }
+                }
+                lastKey = null;
+                pendingRepeats = 0;
+            }
+            resetPending = true;
+        }
+        ensureRunning();
+    }
+
+    /**
+     * @return 队列中等待输出的行数
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return 最近一秒输出的行数/秒
+     */
+    public double getLinesPerSecond() {
+        return linesPerSecond;
+    }
+
+    /**
+     * @return 累计输出的行数
+     */
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    /**
+     * 停止定时器,未输出的行保留在队列中
+     */
+    public void stop() {
+        timer.stop();
+    }
+
+    private void ensureRunning() {
+        // Timer.start内部加锁且对已启动的定时器无副作用,可以在任意线程调用
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * 立即在当前线程输出队列中的行(至多一帧的量,剩余的留给定时器),只在EDT上调用
+     * <p>
+     * 供已经按帧合并过的来源在{@link #offerAll(List, List)}之后调用,不必再多等一帧
+     */
+    public void flush() {
+        tick();
+    }
+
+    /**
+     * 每帧在EDT上执行一次: 取出队列中的行,一次性交给处理器
+     */
+    private void tick() {
+        boolean reset;
+        // 本帧第一行之前的重复次数,属于上一帧最后一行
+        int previousRepeats = 0;
+        boolean hasRepeats = false;
+        boolean hasStyles = false;
+        synchronized (drainLock) {
+            reset = resetPending;
+            resetPending = false;
+            int max = maxLinesPerTick;
+            Object item;
+            while (batch.size() < max && (item = queue.poll()) != null) {
+                if (item instanceof Repeat repeat) {
+                    hasRepeats = true;
+                    if (batch.isEmpty()) {
+                        previousRepeats += repeat.count;
+                    } else {
+                        batchRepeats[batch.size() - 1] += repeat.count;
+                    }
+                    continue;
+                }
+                if (batch.size() == batchRepeats.length) {
+                    batchRepeats = Arrays.copyOf(batchRepeats, batchRepeats.length << 1);
+                    batchStyles = Arrays.copyOf(batchStyles, batchStyles.length << 1);
+                }
+                batchRepeats[batch.size()] = 0;
+                if (item instanceof Styled styled) {
+                    hasStyles = true;
+                    batchStyles[batch.size()] = styled.runs;
+                    batch.add(styled.line);
+                } else {
+                    batchStyles[batch.size()] = null;
+                    batch.add((String) item);
+                }
+            }
+            queueDepth.addAndGet(-batch.size());
+            if (folding) {
+                synchronized (foldLock) {
+                    // 队列已取空时,最后一行还在累加的重复次数也一并交出
+                    if (pendingRepeats > 0 && queue.isEmpty()) {
+                        hasRepeats = true;
+                        if (batch.isEmpty()) {
+                            previousRepeats += pendingRepeats;
+                        } else {
+                            batchRepeats[batch.size() - 1] += pendingRepeats;
+                        }
+                        pendingRepeats = 0;
+                    }
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        int count = batch.size();
+        try {
+            if (reset || count > 0 || previousRepeats > 0) {
+                handler.onFlush(batch, hasRepeats ? batchRepeats : null, hasStyles ? batchStyles : null, previousRepeats, reset);
+            }
+        } finally {
+            if (hasStyles) {
+                Arrays.fill(batchStyles, 0, count, null);
+            }
+            batch.clear();
+        }
+        if (previousRepeats > 0) {
+            lastDeliverTime = now;
+        }
+        updateRate(count, now);
+
+        if (queueDepth.get() == 0 && !hasPendingRepeats() && now - lastDeliverTime > IDLE_STOP_MILLIS) {
+            linesPerSecond = 0;
+            timer.stop();
+            // 停止后再检查一次,避免与生产者的ensureRunning竞争导致数据滞留
+            if (queueDepth.get() > 0 || hasPendingRepeats()) {
+                timer.start();
+            }
+        }
+    }
+
+    private boolean hasPendingRepeats() {
+        synchronized (foldLock) {
+            return pendingRepeats > 0;
+        }
+    }
+
+    private void updateRate(int count, long now) {
+        if (count > 0) {
+            deliveredCount += count;
+            lastDeliverTime = now;
+        }
+        if (windowStart == 0) {
+            windowStart = now;
+            windowDelivered = deliveredCount;
+            return;
+        }
+        long elapsed = now - windowStart;
+        if (elapsed >= 1000) {
+            linesPerSecond = (deliveredCount - windowDelivered) * 1000d / elapsed;
+            windowStart = now;
+            windowDelivered = deliveredCount;
+        }
+    }
+
+    /**
+     * 批量输出处理器,在EDT上调用
+     */
+    @FunctionalInterface
+    public interface FlushHandler {
+        /**
+         * @param lines 本帧取出的行,调用结束后会被清空复用,不要持有引用
+         * @param repeats 折叠模式下每行额外重复的次数(下标与lines对应,长度可能大于lines),本帧没有重复时为null
+         * @param styles 每行的样式片段(下标与lines对应,长度可能大于lines),本帧没有带样式的行时为null,调用结束后会被清空复用
+         * @param previousRepeats 折叠模式下,已输出的最后一行在本帧又重复的次数
+         * @param reset 是否需要先清空已有内容再追加
+         */
+        void onFlush(List<String> lines, int[] repeats, StyleRuns[] styles, int previousRepeats, boolean reset);
+    }
+
+    /**
+     * 队列中的重复次数标记,表示前一行又重复了count次
+     */
+    private record Repeat(int count) {
+    }
+
+    /**
+     * 队列中带样式的行
+     */
+    private record Styled(String line, StyleRuns runs) {
+    }
+}
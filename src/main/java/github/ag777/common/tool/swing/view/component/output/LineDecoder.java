@@ -0,0 +1,119 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.function.Consumer;
+
+/**
+ * 把字节流增量解码为行
+ * <p>
+ * 解码缓冲和行缓冲在整个生命周期内复用,多字节字符跨越两次读取时由解码器保留半个字符,
+ * 行尾的\r会被去掉。单行超过{@value #MAX_LINE_CHARS}个字符时强制截断输出,避免没有换行的输出撑爆内存
+ * <p>
+ * 非线程安全,每个字节流使用一个实例
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午6:00
+ */
+public class LineDecoder {
+    /** 单行最大字符数 */
+    public static final int MAX_LINE_CHARS = 1 << 20;
+    /** 字符缓冲大小 */
+    private static final int CHAR_BUFFER_SIZE = 8192;
+
+    private final CharsetDecoder decoder;
+    private final CharBuffer chars;
+    private final StringBuilder line;
+    private final Consumer<String> sink;
+
+    /**
+     * @param charset 字符集,非法字节替换为替换字符
+     * @param sink 每解码出一行调用一次
+     */
+    public LineDecoder(Charset charset, Consumer<String> sink) {
+        this.sink = sink;
+        decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        line = new StringBuilder();
+    }
+
+    /**
+     * 解码缓冲区中的字节,调用前buffer处于读模式;不完整的多字节字符留在buffer中,调用方应compact后继续写入
+     *
+     * @param bytes 字节缓冲
+     */
+    public void decode(ByteBuffer bytes) {
+        decode(bytes, false);
+    }
+
+    /**
+     * 输入结束: 解码剩余字节,并输出最后一行(没有换行结尾时)
+     *
+     * @param bytes 剩余的字节,可以为null
+     */
+    public void finish(ByteBuffer bytes) {
+        decode(bytes == null ? ByteBuffer.allocate(0) : bytes, true);
+        while (decoder.flush(chars).isOverflow()) {
+            drain();
+        }
+        drain();
+        if (!line.isEmpty()) {
+            emit();
+        }
+        decoder.reset();
+    }
+
+    /**
+     * 丢弃解码器中残留的半个字符和未结束的行,输入源被截断或替换时调用
+     */
+    public void reset() {
+        decoder.reset();
+        chars.clear();
+        line.setLength(0);
+    }
+
+    private void decode(ByteBuffer bytes, boolean endOfInput) {
+        while (true) {
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            drain();
+            if (!result.isOverflow()) {
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        chars.flip();
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if (c == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                emit();
+            } else {
+                line.append(c);
+                if (line.length() >= MAX_LINE_CHARS) {
+                    emit();
+                }
+            }
+        }
+        chars.clear();
+    }
+
+    private void emit() {
+        sink.accept(line.toString());
+        line.setLength(0);
+        if (line.capacity() > CHAR_BUFFER_SIZE * 8) {
+            // 偶尔出现的超长行不应让缓冲一直占着内存
+            line.trimToSize();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * 把{@link LineStore}中的行流式写入文件
+ * <p>
+ * 每次从存储中读取{@value #READ_CHUNK}行,编码到固定大小的字节缓冲后写入文件,
+ * 不会把所有内容拼成一个大字符串,内存占用与输出总量无关。
+ * 导出过程中被淘汰的行会被跳过;每批行之间检查取消标记,取消时停止导出并删除未写完的文件。
+ * 取消不依赖线程中断,文件通过不响应中断的{@link FileOutputStream}写入
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午7:40
+ */
+public class LineExporter {
+    /** 单次从存储中读取的行数 */
+    private static final int READ_CHUNK = 4096;
+    /** 写入缓冲大小 */
+    private static final int BYTE_BUFFER_SIZE = 64 * 1024;
+
+    private LineExporter() {
+    }
+
+    /**
+     * 导出存储中当前的所有行
+     *
+     * @param store 行存储
+     * @param file 目标文件,已存在时覆盖
+     * @param charset 文件编码,无法编码的字符替换为替换字符
+     * @param onProgress 每写完一批行调用一次,参数为已处理的行数,总行数为调用时的{@link LineStore#size()}
+     * @param cancelled 取消标记,每批行之前检查一次,为null时不可取消
+     * @return 写入的行数
+     * @throws IOException 写入失败
+     * @throws CancellationException 导出被取消
+     */
+    public static long export(LineStore store, Path file, Charset charset, LongConsumer onProgress, BooleanSupplier cancelled) throws IOException {
+        long seq = store.getFirstSeq();
+        long end = store.getEndSeq();
+        CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+        CharBuffer lineSeparator = CharBuffer.wrap(System.lineSeparator());
+        String[] buffer = new String[READ_CHUNK];
+        long written = 0;
+        boolean completed = false;
+        try (OutputStream out = new FileOutputStream(file.toFile())) {
+            while (seq < end) {
+                if (cancelled != null && cancelled.getAsBoolean()) {
+                    throw new CancellationException("导出已取消");
+                }
+                seq = Math.max(seq, store.getFirstSeq());
+                int count = store.read(seq, buffer, 0, (int) Math.min(READ_CHUNK, end - seq));
+                if (count <= 0) {
+                    break;
+                }
+                for (int i = 0; i < count; i++) {
+                    String line = buffer[i];
+                    buffer[i] = null;
+                    if (line != null) {
+                        int repeats = store.getRepeats(seq + i);
+                        encode(encoder, CharBuffer.wrap(repeats > 0 ? line + LineStore.repeatSuffix(repeats) : line), bytes, out);
+                    }
+                    encode(encoder, lineSeparator.rewind(), bytes, out);
+                }
+                seq += count;
+                written += count;
+                if (onProgress != null) {
+                    onProgress.accept(written);
+                }
+            }
+            encoder.encode(CharBuffer.allocate(0), bytes, true);
+            while (encoder.flush(bytes).isOverflow()) {
+                writeOut(bytes, out);
+            }
+            writeOut(bytes, out);
+            completed = true;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(file);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 编码字符,缓冲写满时写入文件
+     */
+    private static void encode(CharsetEncoder encoder, CharBuffer chars, ByteBuffer bytes, OutputStream out) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, false);
+            if (!result.isOverflow()) {
+                return;
+            }
+            writeOut(bytes, out);
+        }
+    }
+
+    private static void writeOut(ByteBuffer bytes, OutputStream out) throws IOException {
+        out.write(bytes.array(), 0, bytes.position());
+        bytes.clear();
+    }
+}
@@ -0,0 +1,138 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 输出区域的过滤视图
+ * <p>
+ * 注册到输出区域后,每一行新输出只会在写入时被测试一次,命中的行序号追加到升序的long列表中。
+ * 切换到该视图时直接按列表取可见行,代价只和可见行数有关,不需要重建或重新扫描历史
+ * <p>
+ * 只在EDT上访问
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午4:10
+ */
+public class LineFilter {
+    /** 不过滤,显示全部行 */
+    public static final LineFilter ALL = new LineFilter("全部", null);
+
+    @Getter
+    private final String name;
+    private final Predicate<String> predicate;
+    /** 命中的行序号,升序 */
+    private final LongList matches;
+
+    /**
+     * @param name 名称,显示在过滤下拉框中
+     * @param predicate 行过滤条件,只会在EDT上调用,需要足够快
+     */
+    public LineFilter(String name, Predicate<String> predicate) {
+        this.name = name;
+        this.predicate = predicate;
+        matches = new LongList();
+    }
+
+    /**
+     * 按日志级别过滤,如"ERROR"、"WARN"
+     *
+     * @param name 名称
+     * @param levels 日志级别,按整词匹配
+     * @return 过滤视图
+     */
+    public static LineFilter level(String name, String... levels) {
+        String alternatives = Arrays.stream(levels).map(Pattern::quote).collect(Collectors.joining("|"));
+        return regex(name, "\\b(?:" + alternatives + ")\\b");
+    }
+
+    /**
+     * 按关键字过滤(区分大小写)
+     *
+     * @param name 名称
+     * @param keyword 关键字,如任务id
+     * @return 过滤视图
+     */
+    public static LineFilter keyword(String name, String keyword) {
+        return new LineFilter(name, line -> line.contains(keyword));
+    }
+
+    /**
+     * 按正则表达式过滤,行内任意位置匹配即可
+     *
+     * @param name 名称
+     * @param regex 正则表达式
+     * @return 过滤视图
+     */
+    public static LineFilter regex(String name, String regex) {
+        Pattern pattern = Pattern.compile(regex);
+        return new LineFilter(name, line -> pattern.matcher(line).find());
+    }
+
+    /**
+     * @return 是否为不过滤的视图
+     */
+    public boolean isAll() {
+        return predicate == null;
+    }
+
+    /**
+     * 测试新写入的行并记录命中的行序号
+     *
+     * @param firstSeq 第一行的序号
+     * @param lines 新写入的行
+     */
+    public void accept(long firstSeq, List<String> lines) {
+        if (predicate == null) {
+            return;
+        }
+        for (int i = 0, size = lines.size(); i < size; i++) {
+            String line = lines.get(i);
+            if (line != null && predicate.test(line)) {
+                matches.add(firstSeq + i);
+            }
+        }
+    }
+
+    /**
+     * 丢弃已被淘汰的行
+     *
+     * @param firstSeq 存储中最早一行的序号
+     */
+    public void trim(long firstSeq) {
+        matches.removeBelow(firstSeq);
+    }
+
+    /**
+     * @return 命中的行数
+     */
+    public int size() {
+        return matches.size();
+    }
+
+    /**
+     * @param row 视图中的行号
+     * @return 对应的行序号
+     */
+    public long seqOfRow(int row) {
+        return matches.get(row);
+    }
+
+    /**
+     * @param seq 行序号
+     * @return 第一个序号大于等于seq的行在视图中的行号
+     */
+    public int rowOfSeq(long seq) {
+        return matches.lowerBound(seq);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,139 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import java.util.List;
+
+/**
+ * 按块维护的行字符索引,供后台搜索跳过不可能匹配的块
+ * <p>
+ * 每{@value #BLOCK_LINES}行为一块,记录块内出现过的字符集合(128位掩码:
+ * 可打印ASCII字符统一转小写后一一对应,其余字符散列到剩余位上)。
+ * 普通文本查询时,查询串中任一字符不在块掩码中即可整块跳过;正则查询不使用索引。
+ * 每块只占16字节,追加时在EDT上随行写入一并更新
+ * <p>
+ * 线程安全
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午1:55
+ */
+public class LineIndex {
+    /** 每块行数 */
+    public static final int BLOCK_LINES = 256;
+
+    /** 每块两个long,依次为低64位和高64位 */
+    private final LongList masks;
+    /** masks中第一块对应的块号(序号/BLOCK_LINES) */
+    private long baseBlock;
+    /** 已索引到的行序号(不含) */
+    private long indexedEnd;
+
+    public LineIndex() {
+        masks = new LongList(64);
+    }
+
+    /**
+     * 索引新追加的行,行序号必须与上次索引的末尾连续
+     *
+     * @param firstSeq 第一行的序号
+     * @param lines 新追加的行
+     */
+    public synchronized void indexLines(long firstSeq, List<String> lines) {
+        if (firstSeq != indexedEnd) {
+            reset(firstSeq);
+        }
+        for (String line : lines) {
+            long block = indexedEnd / BLOCK_LINES;
+            int slot = (int) (block - baseBlock) * 2;
+            while (slot + 1 >= masks.size()) {
+                masks.add(0);
+            }
+            long low = masks.get(slot);
+            long high = masks.get(slot + 1);
+            for (int i = 0, len = line.length(); i < len; i++) {
+                int bit = bitOf(line.charAt(i));
+                if (bit < 64) {
+                    low |= 1L << bit;
+                } else {
+                    high |= 1L << (bit - 64);
+                }
+            }
+            masks.set(slot, low);
+            masks.set(slot + 1, high);
+            indexedEnd++;
+        }
+    }
+
+    /**
+     * 丢弃指定序号之前已经完整淘汰的块
+     *
+     * @param firstSeq 存储中最早一行的序号
+     */
+    public synchronized void trim(long firstSeq) {
+        long firstBlock = firstSeq / BLOCK_LINES;
+        if (firstBlock > baseBlock) {
+            int count = (int) Math.min(firstBlock - baseBlock, masks.size() / 2);
+            masks.removeHead(count * 2);
+            baseBlock += count;
+        }
+    }
+
+    /**
+     * 清空索引,从指定序号重新开始
+     *
+     * @param firstSeq 下一行的序号
+     */
+    public synchronized void reset(long firstSeq) {
+        masks.clear();
+        baseBlock = firstSeq / BLOCK_LINES;
+        indexedEnd = firstSeq;
+    }
+
+    /**
+     * @return 已索引到的行序号(不含),后台搜索只应读取此序号之前的行
+     */
+    public synchronized long getIndexedEnd() {
+        return indexedEnd;
+    }
+
+    /**
+     * 判断块中是否可能包含查询串
+     *
+     * @param block 块号(序号/BLOCK_LINES)
+     * @param query 查询掩码,见{@link #maskOf(String)}
+     * @return 不能确定时返回true
+     */
+    public synchronized boolean mayContain(long block, long[] query) {
+        int slot = (int) (block - baseBlock) * 2;
+        if (block < baseBlock || slot >= masks.size()) {
+            return true;
+        }
+        return (masks.get(slot) & query[0]) == query[0] && (masks.get(slot + 1) & query[1]) == query[1];
+    }
+
+    /**
+     * 计算查询串的字符掩码
+     *
+     * @param text 查询串
+     * @return 两个long组成的掩码
+     */
+    public static long[] maskOf(String text) {
+        long[] mask = new long[2];
+        for (int i = 0, len = text.length(); i < len; i++) {
+            int bit = bitOf(text.charAt(i));
+            mask[bit >> 6] |= 1L << (bit & 63);
+        }
+        return mask;
+    }
+
+    /**
+     * 字符对应的掩码位: 可打印ASCII转小写后映射到0~95,其余字符散列到96~127
+     */
+    private static int bitOf(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            c += 'a' - 'A';
+        }
+        if (c >= 32 && c < 128) {
+            return c - 32;
+        }
+        return 96 + (Character.toLowerCase(c) & 31);
+    }
+}
@@ -0,0 +1,315 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.swing.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 行存储的后台增量搜索
+ * <p>
+ * 搜索在独立的后台线程中按块扫描{@link LineStore},普通文本查询借助{@link LineIndex}整块跳过不可能匹配的行。
+ * 每次调用{@link #search(String, boolean, boolean)}都会中止上一次扫描;
+ * 扫描完成后新追加的行会在{@link #linesAppended()}时继续增量扫描,结果始终按行序号升序保存。
+ * 扫描进度通过回调在EDT上通知,同一时刻最多只有一个待执行的通知
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午2:20
+ */
+@Slf4j
+public class LineSearcher {
+    /** 单次从存储中读取的行数 */
+    private static final int READ_CHUNK = LineIndex.BLOCK_LINES;
+
+    private final LineStore store;
+    private final LineIndex index;
+    private final Runnable onUpdate;
+    private final ThreadPoolExecutor executor;
+    private final AtomicBoolean updatePosted;
+
+    private volatile SearchTask current;
+
+    /**
+     * @param store 行存储
+     * @param index 块索引
+     * @param onUpdate 结果变化时在EDT上执行的回调
+     */
+    public LineSearcher(LineStore store, LineIndex index, Runnable onUpdate) {
+        this.store = store;
+        this.index = index;
+        this.onUpdate = onUpdate;
+        updatePosted = new AtomicBoolean(false);
+        // 单线程,空闲30秒后回收
+        executor = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "output-search");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 开始新的搜索,中止正在进行的扫描
+     *
+     * @param query 查询串,为空时清除搜索
+     * @param regex 是否按正则表达式匹配
+     * @param ignoreCase 是否忽略大小写
+     * @throws PatternSyntaxException 正则表达式不合法
+     */
+    public void search(String query, boolean regex, boolean ignoreCase) throws PatternSyntaxException {
+        SearchTask old = current;
+        if (old != null) {
+            old.cancel();
+        }
+        if (query == null || query.isEmpty()) {
+            current = null;
+            postUpdate();
+            return;
+        }
+        int flags = ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0;
+        Pattern pattern = Pattern.compile(regex ? query : Pattern.quote(query), flags);
+        SearchTask task = new SearchTask(pattern, regex ? null : LineIndex.maskOf(query), store.getFirstSeq());
+        current = task;
+        postUpdate();
+        task.resume();
+    }
+
+    /**
+     * 清除搜索
+     */
+    public void clear() {
+        search(null, false, false);
+    }
+
+    /**
+     * 新行写入存储并完成索引后调用,继续扫描新行
+     */
+    public void linesAppended() {
+        SearchTask task = current;
+        if (task != null) {
+            task.resume();
+        }
+    }
+
+    /**
+     * @return 当前的匹配模式,没有搜索时返回null
+     */
+    public Pattern getPattern() {
+        SearchTask task = current;
+        return task == null ? null : task.pattern;
+    }
+
+    /**
+     * @return 当前搜索是否还在扫描
+     */
+    public boolean isScanning() {
+        SearchTask task = current;
+        return task != null && task.running.get();
+    }
+
+    /**
+     * @return 匹配的行数(不含已被淘汰的行)
+     */
+    public int getMatchCount() {
+        SearchTask task = current;
+        if (task == null) {
+            return 0;
+        }
+        synchronized (task.matches) {
+            task.matches.removeBelow(store.getFirstSeq());
+            return task.matches.size();
+        }
+    }
+
+    /**
+     * 获取匹配行在所有匹配中的位置,用于显示"第几个"
+     *
+     * @param seq 行序号
+     * @return 从0开始的位置,不是匹配行时返回-1
+     */
+    public int indexOfMatch(long seq) {
+        SearchTask task = current;
+        if (task == null) {
+            return -1;
+        }
+        synchronized (task.matches) {
+            task.matches.removeBelow(store.getFirstSeq());
+            int i = task.matches.lowerBound(seq);
+            return i < task.matches.size() && task.matches.get(i) == seq ? i : -1;
+        }
+    }
+
+    /**
+     * 查找下一个匹配行,到末尾后从头开始
+     *
+     * @param fromSeq 从此序号之后开始查找(不含)
+     * @return 匹配行序号,没有匹配时返回-1
+     */
+    public long next(long fromSeq) {
+        SearchTask task = current;
+        if (task == null) {
+            return -1;
+        }
+        synchronized (task.matches) {
+            LongList matches = task.matches;
+            matches.removeBelow(store.getFirstSeq());
+            if (matches.isEmpty()) {
+                return -1;
+            }
+            int i = matches.lowerBound(fromSeq + 1);
+            return matches.get(i < matches.size() ? i : 0);
+        }
+    }
+
+    /**
+     * 查找上一个匹配行,到开头后从末尾开始
+     *
+     * @param fromSeq 从此序号之前开始查找(不含)
+     * @return 匹配行序号,没有匹配时返回-1
+     */
+    public long previous(long fromSeq) {
+        SearchTask task = current;
+        if (task == null) {
+            return -1;
+        }
+        synchronized (task.matches) {
+            LongList matches = task.matches;
+            matches.removeBelow(store.getFirstSeq());
+            if (matches.isEmpty()) {
+                return -1;
+            }
+            int i = matches.lowerBound(fromSeq) - 1;
+            return matches.get(i >= 0 ? i : matches.size() - 1);
+        }
+    }
+
+    /**
+     * 停止后台线程
+     */
+    public void shutdown() {
+        SearchTask task = current;
+        if (task != null) {
+            task.cancel();
+        }
+        // 不用shutdownNow: 扫描由取消标记结束,不中断可能正在读取溢出文件的线程
+        executor.shutdown();
+    }
+
+    /**
+     * 合并通知,避免扫描过程中向EDT投递大量事件
+     */
+    private void postUpdate() {
+        if (updatePosted.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                updatePosted.set(false);
+                onUpdate.run();
+            });
+        }
+    }
+
+    /**
+     * 一次搜索的状态,被新的搜索替换后作废
+     */
+    private class SearchTask {
+        private final Pattern pattern;
+        /** 普通文本查询的字符掩码,正则查询为null */
+        private final long[] mask;
+        /** 匹配的行序号,升序 */
+        private final LongList matches;
+        private final AtomicBoolean running;
+        /** 下一个要扫描的序号,只在扫描线程中访问 */
+        private long next;
+        private volatile boolean cancelled;
+        private volatile Future<?> future;
+
+        SearchTask(Pattern pattern, long[] mask, long from) {
+            this.pattern = pattern;
+            this.mask = mask;
+            this.next = from;
+            matches = new LongList();
+            running = new AtomicBoolean(false);
+        }
+
+        /**
+         * 取消扫描: 只设置标记,扫描在块之间检查后退出。
+         * 不中断扫描线程,扫描可能正在读取溢出文件,中断读取线程不应影响归档
+         */
+        void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+
+        /**
+         * 没有正在执行的扫描时提交一次扫描
+         */
+        void resume() {
+            if (!cancelled && running.compareAndSet(false, true)) {
+                try {
+                    future = executor.submit(this::run);
+                } catch (RejectedExecutionException e) {
+                    // 已经shutdown
+                    running.set(false);
+                }
+            }
+        }
+
+        private void run() {
+            try {
+                scan();
+            } catch (Exception e) {
+                log.debug("输出搜索异常", e);
+            } finally {
+                running.set(false);
+            }
+            postUpdate();
+            // 扫描结束与新行到达之间可能存在竞争,结束后再检查一次
+            if (!cancelled && next < index.getIndexedEnd()) {
+                resume();
+            }
+        }
+
+        private void scan() {
+            Matcher matcher = pattern.matcher("");
+            String[] buffer = new String[READ_CHUNK];
+            while (!cancelled) {
+                long end = index.getIndexedEnd();
+                next = Math.max(next, store.getFirstSeq());
+                if (next >= end) {
+                    break;
+                }
+                long block = next / LineIndex.BLOCK_LINES;
+                long blockEnd = Math.min((block + 1) * LineIndex.BLOCK_LINES, end);
+                if (mask != null && !index.mayContain(block, mask)) {
+                    next = blockEnd;
+                    continue;
+                }
+                int count = store.read(next, buffer, 0, (int) (blockEnd - next));
+                boolean found = false;
+                for (int i = 0; i < count; i++) {
+                    String line = buffer[i];
+                    if (line != null && matcher.reset(line).find()) {
+                        synchronized (matches) {
+                            matches.add(next + i);
+                        }
+                        found = true;
+                    }
+                    buffer[i] = null;
+                }
+                next += Math.max(count, 1);
+                if (found) {
+                    postUpdate();
+                }
+            }
+        }
+    }
+}
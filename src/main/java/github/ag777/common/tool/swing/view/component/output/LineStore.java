@@ -0,0 +1,452 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 有界环形行存储
+ * <p>
+ * 每行分配一个全局递增的序号(seq),清空或淘汰旧行后序号不会复用。
+ * 设置了容量时,超出的最早行在追加时以O(1)的代价直接覆盖,内存占用只和容量有关;
+ * 未设置容量时数组按需倍增
+ * <p>
+ * 设置了{@link LineArchive}时,被淘汰的行会转入归档而不是丢弃,
+ * 此时序号范围覆盖归档和内存两部分,读取归档部分的行由归档负责
+ * <p>
+ * 折叠重复行时,每行额外重复的次数保存在与行数组平行的int数组中(第一次出现重复时才分配),
+ * 转入归档时重复次数以{@link #repeatSuffix(int)}的形式追加到行尾
+ * <p>
+ * 带样式的行(见{@link AnsiParser})的样式片段同样保存在平行数组中(第一次出现样式时才分配),
+ * 归档只保存文本,转入归档后样式丢失
+ * <p>
+ * 每行写入存储的时间(毫秒)保存在与行数组平行的long数组中,不为每行创建对象,
+ * 可以按时间二分查找行;转入归档的行不再保留时间
+ * <p>
+ * 所有方法都是线程安全的,EDT负责写入和绘制,后台线程(搜索、导出等)可以并发读取
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 上午10:05
+ */
+public class LineStore {
+    /** 数组初始大小 */
+    private static final int INITIAL_SIZE = 1024;
+
+    private String[] lines;
+    /** 每行额外重复的次数,与lines下标对应,没有折叠过时为null */
+    private int[] repeats;
+    /** 每行的样式片段,与lines下标对应,没有带样式的行时为null */
+    private StyleRuns[] styles;
+    /** 每行写入的时间(毫秒),与lines下标对应 */
+    private long[] times;
+    /** 清空后第一行写入的时间,还没有行时为0 */
+    private long startTime;
+    /** 最早一行在数组中的下标 */
+    private int head;
+    /** 当前行数 */
+    private int size;
+    /** 最早一行的序号 */
+    private long firstSeq;
+    /** 最大行数,null表示不限制 */
+    private Integer capacity;
+    /** 历史行归档,null表示淘汰的行直接丢弃 */
+    private LineArchive archive;
+    /** 归档中第一行的序号 */
+    private long archiveFirstSeq;
+
+    public LineStore() {
+        lines = new String[initialLength()];
+        times = new long[lines.length];
+    }
+
+    /**
+     * 设置最大行数,缩小容量时立即淘汰最早的多余行
+     *
+     * @param capacity 最大行数,null表示不限制
+     * @return 被丢弃的行数,转入归档的行不计算在内
+     */
+    public synchronized int setCapacity(Integer capacity) {
+        if (capacity != null && capacity <= 0) {
+            throw new IllegalArgumentException("最大行数必须大于0");
+        }
+        this.capacity = capacity;
+        int dropped = 0;
+        if (capacity != null && size > capacity) {
+            dropped = dropHead(size - capacity);
+        }
+        if (capacity != null && lines.length > capacity) {
+            // 释放多余的数组空间
+            resize(Math.max(capacity, size));
+        }
+        return dropped;
+    }
+
+    /**
+     * @return 最大行数,null表示不限制
+     */
+    public synchronized Integer getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 设置历史行归档,之后被淘汰的行会写入归档,原有归档会被关闭
+     *
+     * @param archive 归档,null表示淘汰的行直接丢弃
+     */
+    public synchronized void setArchive(LineArchive archive) {
+        if (this.archive != null) {
+            this.archive.close();
+        }
+        this.archive = archive;
+        archiveFirstSeq = firstSeq;
+        if (archive != null) {
+            archive.clear();
+        }
+    }
+
+    /**
+     * @return 历史行归档,未设置时为null
+     */
+    public synchronized LineArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * 批量追加行
+     *
+     * @param batch 待追加的行
+     * @return 因超出容量被丢弃的行数,转入归档的行不计算在内
+     */
+    public synchronized int append(List<String> batch) {
+        return append(batch, null);
+    }
+
+    /**
+     * 批量追加行(带重复次数)
+     *
+     * @param batch 待追加的行
+     * @param batchRepeats 每行额外重复的次数,与batch一一对应,null表示都没有重复
+     * @return 因超出容量被丢弃的行数,转入归档的行不计算在内
+     */
+    public synchronized int append(List<String> batch, int[] batchRepeats) {
+        return append(batch, batchRepeats, null);
+    }
+
+    /**
+     * 批量追加行(带重复次数和样式)
+     *
+     * @param batch 待追加的行
+     * @param batchRepeats 每行额外重复的次数,与batch一一对应,null表示都没有重复
+     * @param batchStyles 每行的样式片段,与batch一一对应,null表示都没有样式
+     * @return 因超出容量被丢弃的行数,转入归档的行不计算在内
+     */
+    public synchronized int append(List<String> batch, int[] batchRepeats, StyleRuns[] batchStyles) {
+        return append(batch, batchRepeats, batchStyles, null);
+    }
+
+    /**
+     * 批量追加行(带重复次数、样式和写入时间)
+     *
+     * @param batch 待追加的行
+     * @param batchRepeats 每行额外重复的次数,与batch一一对应,null表示都没有重复
+     * @param batchStyles 每行的样式片段,与batch一一对应,null表示都没有样式
+     * @param batchTimes 每行的写入时间(毫秒),与batch一一对应,null表示都使用当前时间
+     * @return 因超出容量被丢弃的行数,转入归档的行不计算在内
+     */
+    public synchronized int append(List<String> batch, int[] batchRepeats, StyleRuns[] batchStyles, long[] batchTimes) {
+        long now = batchTimes == null ? System.currentTimeMillis() : 0;
+        int dropped = 0;
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            String line = batch.get(i);
+            if (capacity != null && size == capacity) {
+                // 满了先淘汰最早的一行,数组大小等于容量时新行正好落在被淘汰的位置上
+                dropped += dropHead(1);
+            }
+            if (size == lines.length) {
+                int newLength = lines.length << 1;
+                if (capacity != null) {
+                    newLength = Math.min(newLength, capacity);
+                }
+                resize(newLength);
+            }
+            int index = (head + size) % lines.length;
+            lines[index] = line;
+            times[index] = batchTimes == null ? now : batchTimes[i];
+            if (startTime == 0) {
+                startTime = times[index];
+            }
+            if (batchRepeats != null && batchRepeats[i] > 0) {
+                ensureRepeats()[index] = batchRepeats[i];
+            }
+            if (batchStyles != null && batchStyles[i] != null) {
+                ensureStyles()[index] = batchStyles[i];
+            }
+            size++;
+        }
+        return dropped;
+    }
+
+    /**
+     * 增加指定行的重复次数,行已被淘汰时忽略
+     *
+     * @param seq 行序号
+     * @param count 增加的次数
+     */
+    public synchronized void addRepeats(long seq, int count) {
+        long offset = seq - firstSeq;
+        if (offset < 0 || offset >= size || count <= 0) {
+            return;
+        }
+        int index = (int) ((head + offset) % lines.length);
+        int[] r = ensureRepeats();
+        r[index] = (int) Math.min((long) r[index] + count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 获取指定行额外重复的次数
+     *
+     * @param seq 行序号
+     * @return 额外重复的次数,没有重复或行不在内存中时返回0
+     */
+    public synchronized int getRepeats(long seq) {
+        long offset = seq - firstSeq;
+        if (repeats == null || offset < 0 || offset >= size) {
+            return 0;
+        }
+        return repeats[(int) ((head + offset) % lines.length)];
+    }
+
+    /**
+     * 获取指定行的样式片段
+     *
+     * @param seq 行序号
+     * @return 样式片段,没有样式或行不在内存中时返回null
+     */
+    public synchronized StyleRuns getStyles(long seq) {
+        long offset = seq - firstSeq;
+        if (styles == null || offset < 0 || offset >= size) {
+            return null;
+        }
+        return styles[(int) ((head + offset) % lines.length)];
+    }
+
+    /**
+     * 获取指定行写入存储的时间
+     *
+     * @param seq 行序号
+     * @return 写入时间(毫秒),行不在内存中时返回0
+     */
+    public synchronized long getTime(long seq) {
+        long offset = seq - firstSeq;
+        if (offset < 0 || offset >= size) {
+            return 0;
+        }
+        return times[(int) ((head + offset) % lines.length)];
+    }
+
+    /**
+     * @return 清空后第一行写入的时间(毫秒),还没有行时返回0
+     */
+    public synchronized long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * 按时间二分查找内存中的行
+     *
+     * @param time 时间(毫秒)
+     * @return 第一个写入时间不早于time的行序号,都早于time时返回最后一行,没有行时返回-1
+     */
+    public synchronized long seqAtTime(long time) {
+        if (size == 0) {
+            return -1;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[(head + mid) % lines.length] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return firstSeq + low;
+    }
+
+    /**
+     * 重复次数的显示后缀
+     *
+     * @param repeats 额外重复的次数
+     * @return 形如" ×N"的后缀,N为总出现次数
+     */
+    public static String repeatSuffix(int repeats) {
+        return " ×" + ((long) repeats + 1);
+    }
+
+    /**
+     * 清空所有行,序号继续递增
+     */
+    public synchronized void clear() {
+        firstSeq += size;
+        archiveFirstSeq = firstSeq;
+        if (archive != null) {
+            archive.clear();
+        }
+        head = 0;
+        size = 0;
+        lines = new String[initialLength()];
+        times = new long[lines.length];
+        startTime = 0;
+        repeats = null;
+        styles = null;
+    }
+
+    /**
+     * @return 当前行数(包含归档中的行)
+     */
+    public synchronized int size() {
+        return (int) Math.min(firstSeq + size - getFirstSeq(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return 内存中的行数
+     */
+    public synchronized int memorySize() {
+        return size;
+    }
+
+    /**
+     * @return 最早一行的序号(包含归档中的行)
+     */
+    public synchronized long getFirstSeq() {
+        return archive == null ? firstSeq : archiveFirstSeq;
+    }
+
+    /**
+     * @return 下一行将使用的序号(即最后一行序号+1)
+     */
+    public synchronized long getEndSeq() {
+        return firstSeq + size;
+    }
+
+    /**
+     * 获取指定序号的行
+     *
+     * @param seq 行序号
+     * @return 行内容,已被淘汰或不存在时返回null
+     */
+    public synchronized String get(long seq) {
+        long offset = seq - firstSeq;
+        if (offset < 0) {
+            return archive == null || seq < archiveFirstSeq ? null : archive.get(seq - archiveFirstSeq);
+        }
+        if (offset >= size) {
+            return null;
+        }
+        return lines[(int) ((head + offset) % lines.length)];
+    }
+
+    /**
+     * 从指定序号开始批量读取,供后台线程分块遍历使用
+     *
+     * @param fromSeq 起始序号,早于最早一行时从最早一行开始
+     * @param dest 目标数组
+     * @param destPos 目标数组起始位置
+     * @param length 最多读取的行数
+     * @return 实际读取的行数,没有可读的行时返回0。归档读取失败的行会以null填充
+     */
+    public synchronized int read(long fromSeq, String[] dest, int destPos, int length) {
+        fromSeq = Math.max(fromSeq, getFirstSeq());
+        int archived = 0;
+        // 先读归档部分,读取失败的行填null
+        if (fromSeq < firstSeq) {
+            archived = (int) Math.min(length, firstSeq - fromSeq);
+            int count = archive.read(fromSeq - archiveFirstSeq, dest, destPos, archived);
+            Arrays.fill(dest, destPos + Math.max(count, 0), destPos + archived, null);
+            fromSeq += archived;
+        }
+        long offset = fromSeq - firstSeq;
+        if (archived == length || offset >= size) {
+            return archived;
+        }
+        int count = (int) Math.min(length - archived, size - offset);
+        int start = (int) ((head + offset) % lines.length);
+        int firstPart = Math.min(count, lines.length - start);
+        System.arraycopy(lines, start, dest, destPos + archived, firstPart);
+        if (firstPart < count) {
+            System.arraycopy(lines, 0, dest, destPos + archived + firstPart, count - firstPart);
+        }
+        return archived + count;
+    }
+
+    private int[] ensureRepeats() {
+        if (repeats == null) {
+            repeats = new int[lines.length];
+        }
+        return repeats;
+    }
+
+    private StyleRuns[] ensureStyles() {
+        if (styles == null) {
+            styles = new StyleRuns[lines.length];
+        }
+        return styles;
+    }
+
+    private int initialLength() {
+        return capacity == null ? INITIAL_SIZE : Math.min(INITIAL_SIZE, capacity);
+    }
+
+    /**
+     * 淘汰最早的若干行,设置了归档时转入归档
+     *
+     * @return 被丢弃的行数
+     */
+    private int dropHead(int count) {
+        for (int i = 0; i < count; i++) {
+            int repeat = repeats == null ? 0 : repeats[head];
+            if (archive != null) {
+                archive.append(repeat > 0 ? lines[head] + repeatSuffix(repeat) : lines[head]);
+            }
+            lines[head] = null;
+            if (repeat > 0) {
+                repeats[head] = 0;
+            }
+            if (styles != null) {
+                styles[head] = null;
+            }
+            head = (head + 1) % lines.length;
+        }
+        size -= count;
+        firstSeq += count;
+        return archive == null ? count : 0;
+    }
+
+    /**
+     * 调整数组大小,并把数据整理为从0开始连续存放
+     */
+    private void resize(int newLength) {
+        String[] newLines = new String[newLength];
+        int firstPart = Math.min(size, lines.length - head);
+        System.arraycopy(lines, head, newLines, 0, firstPart);
+        System.arraycopy(lines, 0, newLines, firstPart, size - firstPart);
+        lines = newLines;
+        long[] newTimes = new long[newLength];
+        System.arraycopy(times, head, newTimes, 0, firstPart);
+        System.arraycopy(times, 0, newTimes, firstPart, size - firstPart);
+        times = newTimes;
+        if (repeats != null) {
+            int[] newRepeats = new int[newLength];
+            System.arraycopy(repeats, head, newRepeats, 0, firstPart);
+            System.arraycopy(repeats, 0, newRepeats, firstPart, size - firstPart);
+            repeats = newRepeats;
+        }
+        if (styles != null) {
+            StyleRuns[] newStyles = new StyleRuns[newLength];
+            System.arraycopy(styles, head, newStyles, 0, firstPart);
+            System.arraycopy(styles, 0, newStyles, firstPart, size - firstPart);
+            styles = newStyles;
+        }
+        head = 0;
+    }
+}
@@ -0,0 +1,773 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import github.ag777.common.tool.swing.model.Theme;
+import github.ag777.common.tool.swing.util.awt.ClipboardUtils;
+import github.ag777.common.tool.swing.util.ui.DialogUtils;
+import github.ag777.common.tool.swing.util.ui.ScrollPaneUtils;
+import github.ag777.common.tool.swing.util.ui.layout.BorderLayoutHelper;
+import github.ag777.common.tool.swing.util.ui.layout.FlowLayoutHelper;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基于{@link LineStore}的只读行视图
+ * <p>
+ * 所有行使用固定行高,绘制时只取可见区域内的行,
+ * 因此无论存储中有多少行,单次绘制和布局的代价都只和可见行数有关。
+ * 支持按行选择(鼠标拖拽)、Ctrl+A全选和Ctrl+C复制,
+ * 以及对可见行高亮搜索结果。
+ * 设置{@link LineFilter}后只显示命中的行,视图行号通过过滤视图的序号列表映射到行序号。
+ * 带样式的行按{@link StyleRuns}逐段设置颜色和字形绘制
+ * <p>
+ * 超过{@link #setMaxDisplayChars(int)}的超长行只绘制和测量前面一段,行尾显示"…(+N字符)",
+ * 存储中保留完整内容,双击该行时在对话框中分段查看完整内容
+ * <p>
+ * 可以在行首显示每行写入存储的绝对时间或相对第一行的时间(见{@link TimeMode}),时间列宽度固定
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 上午10:30
+ */
+public class LineView extends JComponent implements Scrollable {
+    /** 默认单行最多显示的字符数 */
+    public static final int DEFAULT_MAX_DISPLAY_CHARS = 10000;
+    /** 查看完整行时每段的字符数 */
+    private static final int FULL_LINE_CHUNK_CHARS = 200;
+    /** 文字左右留白 */
+    private static final int PADDING = 4;
+    /** 重新测量行宽时单次从存储中读取的行数 */
+    private static final int REMEASURE_CHUNK = 4096;
+    /** 搜索匹配的高亮色 */
+    private static final Color COLOR_MATCH = new Color(255, 235, 59);
+    /** 当前搜索匹配的高亮色 */
+    private static final Color COLOR_CURRENT_MATCH = new Color(255, 152, 0);
+    /** 重复次数的文字颜色 */
+    private static final Color COLOR_REPEAT = Theme.COLOR_PRIMARY;
+    /** 时间列的文字颜色 */
+    private static final Color COLOR_TIME = Color.GRAY;
+    /** 绝对时间格式 */
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+    private final LineStore store;
+
+    private int rowHeight;
+    private int ascent;
+    private int charWidth;
+    /** 按字形标志(粗体、斜体)缓存的派生字体,下标为{@link #fontIndex(AnsiStyle)} */
+    private final Font[] styledFonts = new Font[4];
+    /** 时间列的显示方式 */
+    private TimeMode timeMode = TimeMode.NONE;
+    /** 时间列宽度(像素),不显示时为0 */
+    private int gutterWidth;
+    /** 单行最多显示的字符数,超出部分折叠 */
+    private int maxDisplayChars = DEFAULT_MAX_DISPLAY_CHARS;
+    /** 已知的最长行宽度(像素),最长的行被清空或淘汰后重新计算 */
+    private int maxLineWidth;
+    /** 最长行的序号,-1表示没有 */
+    private long maxLineSeq = -1;
+
+    /** 选区锚点和活动端的行序号,-1表示没有选区 */
+    private long selectionAnchor = -1;
+    private long selectionLead = -1;
+
+    /** 需要高亮的搜索模式,只对可见行计算 */
+    private Pattern highlightPattern;
+    /** 当前搜索匹配所在的行序号,-1表示没有 */
+    private long currentMatchSeq = -1;
+
+    /** 当前显示的过滤视图,null表示显示全部行 */
+    private LineFilter filter;
+
+    public LineView(LineStore store) {
+        this.store = store;
+        setFont(UIManager.getFont("TextArea.font"));
+        setForeground(UIManager.getColor("TextArea.foreground"));
+        setBackground(UIManager.getColor("TextArea.background"));
+        setOpaque(true);
+        setFocusable(true);
+        setAutoscrolls(true);
+        initSelection();
+    }
+
+    @Override
+    public void setFont(Font font) {
+        int oldCharWidth = charWidth;
+        super.setFont(font);
+        FontMetrics fm = getFontMetrics(font);
+        rowHeight = fm.getHeight();
+        ascent = fm.getAscent();
+        charWidth = Math.max(fm.charWidth('m'), 1);
+        Arrays.fill(styledFonts, null);
+        gutterWidth = gutterWidth(fm);
+        if (oldCharWidth > 0) {
+            // 字体变化时按字符宽度等比换算,避免重新测量所有行
+            maxLineWidth = (int) ((long) maxLineWidth * charWidth / oldCharWidth);
+        }
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * @return 行高(像素)
+     */
+    public int getRowHeight() {
+        return rowHeight;
+    }
+
+    /**
+     * 设置单行最多显示的字符数,超出部分不绘制也不测量,行尾显示被隐藏的字符数
+     *
+     * @param maxDisplayChars 单行最多显示的字符数
+     */
+    public void setMaxDisplayChars(int maxDisplayChars) {
+        if (maxDisplayChars <= 0) {
+            throw new IllegalArgumentException("单行显示字符数必须大于0");
+        }
+        this.maxDisplayChars = maxDisplayChars;
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * @return 单行最多显示的字符数
+     */
+    public int getMaxDisplayChars() {
+        return maxDisplayChars;
+    }
+
+    /**
+     * 设置时间列的显示方式
+     *
+     * @param timeMode 不显示、绝对时间或相对第一行的时间
+     */
+    public void setTimeMode(TimeMode timeMode) {
+        this.timeMode = timeMode == null ? TimeMode.NONE : timeMode;
+        gutterWidth = gutterWidth(getFontMetrics(getFont()));
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * @return 时间列的显示方式
+     */
+    public TimeMode getTimeMode() {
+        return timeMode;
+    }
+
+    private int gutterWidth(FontMetrics fm) {
+        if (timeMode == null || timeMode == TimeMode.NONE) {
+            return 0;
+        }
+        // 时间都是等宽数字,用样例计算固定宽度,再留一个字符的间隔
+        return fm.stringWidth(timeMode == TimeMode.RELATIVE ? "+00:00:00.000" : "00:00:00.000") + charWidth;
+    }
+
+    /**
+     * 按当前显示方式格式化行的写入时间
+     */
+    private String formatTime(long time) {
+        if (time == 0) {
+            return "";
+        }
+        if (timeMode == TimeMode.ABSOLUTE) {
+            return TIME_FORMATTER.format(Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()));
+        }
+        long elapsed = Math.max(time - store.getStartTime(), 0);
+        return String.format("+%02d:%02d:%02d.%03d", elapsed / 3600000, elapsed / 60000 % 60, elapsed / 1000 % 60, elapsed % 1000);
+    }
+
+    /**
+     * @return 行文字起点的x坐标
+     */
+    private int textX() {
+        return PADDING + gutterWidth;
+    }
+
+    /**
+     * 超长行被隐藏部分的提示
+     *
+     * @param hiddenChars 被隐藏的字符数
+     * @return 形如"…(+N字符)"的提示
+     */
+    public static String truncatedSuffix(int hiddenChars) {
+        return "…(+" + hiddenChars + "字符)";
+    }
+
+    /**
+     * 新行写入存储后调用,测量新行宽度并刷新视图,只在EDT上调用
+     *
+     * @param lines 新写入的行
+     */
+    public void linesAppended(List<String> lines) {
+        FontMetrics fm = getFontMetrics(getFont());
+        long seq = store.getEndSeq() - lines.size();
+        for (String line : lines) {
+            measureLine(fm, line, seq++);
+        }
+        linesChanged();
+    }
+
+    /**
+     * 比当前最长行更宽时记录该行的宽度和序号
+     */
+    private void measureLine(FontMetrics fm, String line, long seq) {
+        int length = Math.min(line.length(), maxDisplayChars);
+        // 按最宽字符(中文约两倍宽)估算,可能超过当前最大宽度时才真正测量
+        if ((long) length * charWidth * 2 > maxLineWidth) {
+            int width = length < line.length()
+                    ? fm.stringWidth(line.substring(0, length)) + fm.stringWidth(truncatedSuffix(line.length() - length))
+                    : fm.stringWidth(line);
+            if (width > maxLineWidth) {
+                maxLineWidth = width;
+                maxLineSeq = seq;
+            }
+        }
+    }
+
+    /**
+     * 最长的行已不在存储中时,重新测量剩余的行
+     * <p>只在最长的行被淘汰时发生,按块读取,估算宽度不可能更宽的行不测量
+     */
+    private void remeasureLines() {
+        maxLineWidth = 0;
+        maxLineSeq = -1;
+        FontMetrics fm = getFontMetrics(getFont());
+        String[] buffer = new String[REMEASURE_CHUNK];
+        long seq = store.getFirstSeq();
+        long end = store.getEndSeq();
+        while (seq < end) {
+            int count = store.read(seq, buffer, 0, (int) Math.min(buffer.length, end - seq));
+            if (count <= 0) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                if (buffer[i] != null) {
+                    measureLine(fm, buffer[i], seq + i);
+                    buffer[i] = null;
+                }
+            }
+            seq += count;
+        }
+    }
+
+    /**
+     * 存储内容发生变化(清空、淘汰等)后调用,只在EDT上调用
+     */
+    public void linesChanged() {
+        if (store.size() == 0) {
+            clearSelection();
+            maxLineWidth = 0;
+            maxLineSeq = -1;
+        } else if (maxLineSeq >= 0 && maxLineSeq < store.getFirstSeq()) {
+            remeasureLines();
+        }
+        if (filter != null) {
+            filter.trim(store.getFirstSeq());
+        }
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * 切换显示的过滤视图,只在EDT上调用
+     * <p>
+     * 过滤视图的命中列表是随写入增量维护的,切换时不扫描历史,代价只和可见行数有关
+     *
+     * @param filter 过滤视图,null或{@link LineFilter#ALL}表示显示全部行
+     */
+    public void setFilter(LineFilter filter) {
+        this.filter = filter == null || filter.isAll() ? null : filter;
+        linesChanged();
+    }
+
+    /**
+     * @return 当前显示的过滤视图,显示全部行时返回{@link LineFilter#ALL}
+     */
+    public LineFilter getFilter() {
+        return filter == null ? LineFilter.ALL : filter;
+    }
+
+    /**
+     * 重绘指定行,行内容原地变化(如重复计数增加)时调用
+     *
+     * @param seq 行序号
+     */
+    public void repaintSeq(long seq) {
+        repaint(rowBounds(seq));
+    }
+
+    /**
+     * 清除选区
+     */
+    public void clearSelection() {
+        selectionAnchor = -1;
+        selectionLead = -1;
+    }
+
+    /**
+     * 设置搜索高亮
+     *
+     * @param pattern 匹配模式,null表示取消高亮
+     * @param currentSeq 当前匹配所在的行序号,-1表示没有
+     */
+    public void setHighlight(Pattern pattern, long currentSeq) {
+        this.highlightPattern = pattern;
+        this.currentMatchSeq = currentSeq;
+        repaint();
+    }
+
+    /**
+     * 滚动到指定行,行不在可见区域时将其置于中间,不改变水平位置
+     *
+     * @param seq 行序号
+     */
+    public void scrollToSeq(long seq) {
+        Rectangle row = rowBounds(seq);
+        Rectangle visible = getVisibleRect();
+        if (row.y >= visible.y && row.y + row.height <= visible.y + visible.height) {
+            return;
+        }
+        int y = Math.max(row.y - (visible.height - rowHeight) / 2, 0);
+        scrollRectToVisible(new Rectangle(visible.x, y, visible.width, visible.height));
+    }
+
+    /**
+     * @return 可见区域第一行的序号
+     */
+    public long firstVisibleSeq() {
+        return seqAt(getVisibleRect().y);
+    }
+
+    /**
+     * 获取指定y坐标处的行序号
+     *
+     * @param y 视图内的y坐标
+     * @return 行序号,已限制在现有行范围内
+     */
+    public long seqAt(int y) {
+        int rowCount = rowCount();
+        if (rowCount == 0) {
+            return store.getFirstSeq();
+        }
+        int row = Math.max(y - PADDING, 0) / rowHeight;
+        return seqOfRow(Math.min(row, rowCount - 1));
+    }
+
+    /**
+     * 获取指定行在视图中的区域
+     *
+     * @param seq 行序号,过滤视图中不存在该行时取其后的第一行
+     * @return 行区域
+     */
+    public Rectangle rowBounds(long seq) {
+        long row = rowOfSeq(seq);
+        return new Rectangle(0, (int) (PADDING + row * rowHeight), getWidth(), rowHeight);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        long height = (long) rowCount() * rowHeight + PADDING * 2L;
+        return new Dimension(maxLineWidth + PADDING * 2 + gutterWidth, (int) Math.min(height, Integer.MAX_VALUE));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int size = rowCount();
+        if (size == 0) {
+            return;
+        }
+        int fromRow = Math.max((clip.y - PADDING) / rowHeight, 0);
+        int toRow = Math.min((clip.y + clip.height - PADDING) / rowHeight + 1, size);
+        long selMin = Math.min(selectionAnchor, selectionLead);
+        long selMax = Math.max(selectionAnchor, selectionLead);
+
+        g.setFont(getFont());
+        FontMetrics fm = g.getFontMetrics();
+        Matcher matcher = highlightPattern == null ? null : highlightPattern.matcher("");
+        for (int row = fromRow; row < toRow; row++) {
+            long seq = seqOfRow(row);
+            String line = store.get(seq);
+            if (line == null) {
+                continue;
+            }
+            int hiddenChars = Math.max(line.length() - maxDisplayChars, 0);
+            if (hiddenChars > 0) {
+                line = line.substring(0, maxDisplayChars);
+            }
+            int y = PADDING + row * rowHeight;
+            boolean selected = selMin >= 0 && seq >= selMin && seq <= selMax;
+            if (selected) {
+                g.setColor(UIManager.getColor("TextArea.selectionBackground"));
+                g.fillRect(clip.x, y, clip.width, rowHeight);
+                g.setColor(UIManager.getColor("TextArea.selectionForeground"));
+            } else {
+                g.setColor(getForeground());
+            }
+            if (timeMode != TimeMode.NONE) {
+                Color textColor = g.getColor();
+                g.setColor(selected ? textColor : COLOR_TIME);
+                g.drawString(formatTime(store.getTime(seq)), PADDING, y + ascent);
+                g.setColor(textColor);
+            }
+            StyleRuns runs = store.getStyles(seq);
+            if (runs != null && !selected) {
+                paintRunBackgrounds(g, line, runs, y, clip);
+            }
+            if (matcher != null) {
+                paintMatches(g, fm, matcher.reset(line), line, y, seq == currentMatchSeq, clip);
+            }
+            int lineEnd;
+            if (runs == null) {
+                g.drawString(line, textX(), y + ascent);
+                lineEnd = textX() + fm.stringWidth(line);
+            } else {
+                lineEnd = paintRuns(g, line, runs, y, selected, clip);
+                g.setFont(getFont());
+            }
+            if (hiddenChars > 0) {
+                String suffix = truncatedSuffix(hiddenChars);
+                g.setColor(COLOR_REPEAT);
+                g.drawString(suffix, lineEnd, y + ascent);
+                lineEnd += fm.stringWidth(suffix);
+            }
+            int repeats = store.getRepeats(seq);
+            if (repeats > 0) {
+                g.setColor(COLOR_REPEAT);
+                g.drawString(LineStore.repeatSuffix(repeats), lineEnd, y + ascent);
+            }
+        }
+    }
+
+    /**
+     * 按样式片段绘制一行的文字,选中的行统一使用选区文字颜色
+     * <p>超长行传入的是截断后的文字,片段仍按完整行计算,起点超出文字的片段不绘制,终点截到文字末尾
+     *
+     * @return 文字结束处的x坐标
+     */
+    private int paintRuns(Graphics g, String line, StyleRuns runs, int y, boolean selected, Rectangle clip) {
+        Color textColor = g.getColor();
+        int right = clip.x + clip.width;
+        int length = line.length();
+        int x = textX();
+        for (int i = 0, n = runs.size(); i < n && x <= right && runs.start(i) < length; i++) {
+            AnsiStyle style = runs.style(i);
+            String text = line.substring(runs.start(i), Math.min(runs.end(i, length), length));
+            Font font = styledFont(style);
+            g.setFont(font);
+            int width = getFontMetrics(font).stringWidth(text);
+            g.setColor(selected ? textColor : foregroundOf(style));
+            g.drawString(text, x, y + ascent);
+            if (style.is(AnsiStyle.UNDERLINE)) {
+                g.drawLine(x, y + ascent + 1, x + width - 1, y + ascent + 1);
+            }
+            x += width;
+        }
+        g.setColor(textColor);
+        return x;
+    }
+
+    /**
+     * 填充样式片段的背景色,截断规则与{@link #paintRuns}相同
+     */
+    private void paintRunBackgrounds(Graphics g, String line, StyleRuns runs, int y, Rectangle clip) {
+        int right = clip.x + clip.width;
+        int length = line.length();
+        int x = textX();
+        for (int i = 0, n = runs.size(); i < n && x <= right && runs.start(i) < length; i++) {
+            AnsiStyle style = runs.style(i);
+            Color background = style.is(AnsiStyle.INVERSE)
+                    ? (style.foreground() == null ? getForeground() : style.foreground())
+                    : style.background();
+            int width = getFontMetrics(styledFont(style)).stringWidth(line.substring(runs.start(i), Math.min(runs.end(i, length), length)));
+            if (background != null) {
+                g.setColor(background);
+                g.fillRect(x, y, width, rowHeight);
+            }
+            x += width;
+        }
+    }
+
+    private Color foregroundOf(AnsiStyle style) {
+        if (style.is(AnsiStyle.INVERSE)) {
+            return style.background() == null ? getBackground() : style.background();
+        }
+        return style.foreground() == null ? getForeground() : style.foreground();
+    }
+
+    private Font styledFont(AnsiStyle style) {
+        int index = fontIndex(style);
+        Font font = styledFonts[index];
+        if (font == null) {
+            font = index == 0 ? getFont() : getFont().deriveFont(index);
+            styledFonts[index] = font;
+        }
+        return font;
+    }
+
+    /**
+     * @return 与{@link Font#BOLD}|{@link Font#ITALIC}一致的字形下标
+     */
+    private static int fontIndex(AnsiStyle style) {
+        return (style.is(AnsiStyle.BOLD) ? Font.BOLD : 0) | (style.is(AnsiStyle.ITALIC) ? Font.ITALIC : 0);
+    }
+
+    /**
+     * 绘制一行中的匹配高亮,超出可见区域右侧的匹配不再计算
+     */
+    private void paintMatches(Graphics g, FontMetrics fm, Matcher matcher, String line, int y, boolean current, Rectangle clip) {
+        Color textColor = g.getColor();
+        g.setColor(current ? COLOR_CURRENT_MATCH : COLOR_MATCH);
+        int right = clip.x + clip.width;
+        while (matcher.find()) {
+            if (matcher.end() == matcher.start()) {
+                // 空匹配不高亮,避免死循环
+                continue;
+            }
+            int x1 = textX() + fm.stringWidth(line.substring(0, matcher.start()));
+            if (x1 > right) {
+                break;
+            }
+            int x2 = x1 + fm.stringWidth(line.substring(matcher.start(), matcher.end()));
+            g.fillRect(x1, y, x2 - x1, rowHeight);
+        }
+        g.setColor(textColor);
+    }
+
+    /**
+     * 复制选中的行到剪贴板
+     */
+    public void copySelection() {
+        if (selectionAnchor < 0) {
+            return;
+        }
+        long to = Math.max(selectionAnchor, selectionLead);
+        StringBuilder sb = new StringBuilder();
+        int rowCount = rowCount();
+        for (int row = (int) Math.max(rowOfSeq(Math.min(selectionAnchor, selectionLead)), 0); row < rowCount; row++) {
+            long seq = seqOfRow(row);
+            if (seq > to) {
+                break;
+            }
+            String line = store.get(seq);
+            if (line != null) {
+                if (!sb.isEmpty()) {
+                    sb.append('\n');
+                }
+                sb.append(line);
+                int repeats = store.getRepeats(seq);
+                if (repeats > 0) {
+                    sb.append(LineStore.repeatSuffix(repeats));
+                }
+            }
+        }
+        ClipboardUtils.copyTextToClipboard(sb.toString());
+    }
+
+    /**
+     * 在对话框中查看完整的行,超长行按固定长度分段显示,只绘制可见的分段
+     *
+     * @param seq 行序号
+     */
+    public void showFullLine(long seq) {
+        String line = store.get(seq);
+        if (line == null) {
+            return;
+        }
+        LineStore chunks = new LineStore();
+        List<String> batch = new ArrayList<>(line.length() / FULL_LINE_CHUNK_CHARS + 1);
+        int start = 0;
+        while (start < line.length()) {
+            int end = Math.min(start + FULL_LINE_CHUNK_CHARS, line.length());
+            if (end < line.length() && Character.isHighSurrogate(line.charAt(end - 1))) {
+                // 不拆开代理对
+                end++;
+            }
+            batch.add(line.substring(start, end));
+            start = end;
+        }
+        chunks.append(batch);
+        LineView view = new LineView(chunks);
+        view.setFont(getFont());
+        view.linesAppended(batch);
+        JButton btnCopy = new JButton("复制整行");
+        btnCopy.addActionListener(e -> ClipboardUtils.copyTextToClipboard(line));
+        JPanel content = BorderLayoutHelper.panel()
+                .addComponent2Center(ScrollPaneUtils.wrap(view))
+                .addComponent2South(FlowLayoutHelper.panel().alignRight().add(btnCopy).get())
+                .get();
+        JFrame frame = SwingUtilities.getWindowAncestor(this) instanceof JFrame f ? f : null;
+        DialogUtils.showDialog(frame, "完整内容(共" + line.length() + "字符)", content, new Dimension(800, 500));
+    }
+
+    /**
+     * 选中一行并滚动到该行
+     *
+     * @param seq 行序号
+     */
+    public void selectSeq(long seq) {
+        selectionAnchor = seq;
+        selectionLead = seq;
+        scrollToSeq(seq);
+        repaint();
+    }
+
+    /**
+     * 选中所有行
+     */
+    public void selectAll() {
+        int rowCount = rowCount();
+        if (rowCount == 0) {
+            return;
+        }
+        selectionAnchor = seqOfRow(0);
+        selectionLead = seqOfRow(rowCount - 1);
+        repaint();
+    }
+
+    /**
+     * @return 视图中的行数
+     */
+    private int rowCount() {
+        return filter == null ? store.size() : filter.size();
+    }
+
+    /**
+     * @param row 视图行号
+     * @return 对应的行序号
+     */
+    private long seqOfRow(int row) {
+        return filter == null ? store.getFirstSeq() + row : filter.seqOfRow(row);
+    }
+
+    /**
+     * @param seq 行序号
+     * @return 对应的视图行号,过滤视图中不存在该行时取其后的第一行
+     */
+    private long rowOfSeq(long seq) {
+        return filter == null ? seq - store.getFirstSeq() : filter.rowOfSeq(seq);
+    }
+
+    /**
+     * 初始化鼠标选择和复制快捷键
+     */
+    private void initSelection() {
+        MouseAdapter mouseAdapter = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                requestFocusInWindow();
+                if (!SwingUtilities.isLeftMouseButton(e) || rowCount() == 0) {
+                    return;
+                }
+                long seq = seqAt(e.getY());
+                if (!e.isShiftDown() || selectionAnchor < 0) {
+                    selectionAnchor = seq;
+                }
+                selectionLead = seq;
+                repaint();
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e) || e.getClickCount() != 2 || rowCount() == 0) {
+                    return;
+                }
+                long seq = seqAt(e.getY());
+                String line = store.get(seq);
+                if (line != null && line.length() > maxDisplayChars) {
+                    showFullLine(seq);
+                }
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e) || selectionAnchor < 0) {
+                    return;
+                }
+                selectionLead = seqAt(e.getY());
+                scrollRectToVisible(new Rectangle(e.getX(), e.getY(), 1, 1));
+                repaint();
+            }
+        };
+        addMouseListener(mouseAdapter);
+        addMouseMotionListener(mouseAdapter);
+
+        int menuMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        InputMap inputMap = getInputMap(WHEN_FOCUSED);
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_C, menuMask), "copy");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_A, menuMask), "selectAll");
+        getActionMap().put("copy", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                copySelection();
+            }
+        });
+        getActionMap().put("selectAll", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                selectAll();
+            }
+        });
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? rowHeight : charWidth;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        if (orientation == SwingConstants.VERTICAL) {
+            return Math.max(visibleRect.height - rowHeight, rowHeight);
+        }
+        return Math.max(visibleRect.width - charWidth, charWidth);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return getParent() instanceof JViewport viewport && viewport.getWidth() > getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport viewport && viewport.getHeight() > getPreferredSize().height;
+    }
+
+    /**
+     * 时间列的显示方式
+     */
+    public enum TimeMode {
+        /** 不显示 */
+        NONE,
+        /** 显示写入时刻 */
+        ABSOLUTE,
+        /** 显示相对第一行的时间 */
+        RELATIVE
+    }
+}
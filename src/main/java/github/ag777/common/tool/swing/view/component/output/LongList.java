@@ -0,0 +1,114 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import java.util.Arrays;
+
+/**
+ * 可增长的long列表,不装箱
+ * <p>
+ * 用于保存行序号、时间戳等按行增长的数据,支持从头部批量移除(环形存储淘汰旧行时使用)。
+ * 非线程安全,由调用方负责同步
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午1:40
+ */
+public class LongList {
+    private long[] values;
+    /** 第一个有效元素的下标 */
+    private int head;
+    private int size;
+
+    public LongList() {
+        this(16);
+    }
+
+    public LongList(int initialCapacity) {
+        values = new long[Math.max(initialCapacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+        return values[head + index];
+    }
+
+    public void set(int index, long value) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+        values[head + index] = value;
+    }
+
+    public long last() {
+        return get(size - 1);
+    }
+
+    public void add(long value) {
+        if (head + size == values.length) {
+            if (head > values.length >> 1) {
+                // 头部空出超过一半时先整理,避免无限增长
+                System.arraycopy(values, head, values, 0, size);
+            } else {
+                values = Arrays.copyOfRange(values, head, head + Math.max(size << 1, 16));
+            }
+            head = 0;
+        }
+        values[head + size++] = value;
+    }
+
+    /**
+     * 移除头部若干个元素
+     *
+     * @param count 移除的个数
+     */
+    public void removeHead(int count) {
+        count = Math.min(count, size);
+        head += count;
+        size -= count;
+        if (size == 0) {
+            head = 0;
+        }
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * 在升序列表中查找第一个大于等于指定值的下标
+     *
+     * @param value 目标值
+     * @return 下标,所有元素都小于目标值时返回size()
+     */
+    public int lowerBound(long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[head + mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 在升序列表中移除所有小于指定值的元素
+     *
+     * @param value 下限
+     */
+    public void removeBelow(long value) {
+        removeHead(lowerBound(value));
+    }
+}
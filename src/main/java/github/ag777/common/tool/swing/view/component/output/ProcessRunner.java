@@ -0,0 +1,229 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import github.ag777.common.tool.swing.view.component.OutputArea;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.IntConsumer;
+
+/**
+ * 运行外部进程并把stdout/stderr输出到{@link OutputArea}
+ * <p>
+ * 两个输出流各由一个虚拟线程读取,复用固定大小的字节/字符缓冲解码为行;
+ * 每行按完成的先后分配序号后写入输出区域,两个流的行按序号交错显示。
+ * 输出区域等待刷新的行数超过{@link #maxPendingLines(int)}时读取线程暂停,
+ * 管道写满后子进程自然阻塞,因此即使进程输出几百MB内存也不会无限增长
+ * <p>
+ * {@link #run()}阻塞到进程结束,线程被中断或调用{@link #cancel()}时结束进程及其子进程
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午6:10
+ */
+@Slf4j
+public class ProcessRunner {
+    /** 默认允许输出区域积压的行数 */
+    public static final int DEFAULT_MAX_PENDING_LINES = LineBatcher.DEFAULT_MAX_LINES_PER_TICK * 2;
+    /** 读取缓冲大小 */
+    private static final int BYTE_BUFFER_SIZE = 64 * 1024;
+    /** 积压时的等待间隔(毫秒) */
+    private static final long BACKPRESSURE_WAIT_MILLIS = 5;
+    /** 正常结束进程的等待时间(毫秒),超时后强制结束 */
+    private static final long DESTROY_TIMEOUT_MILLIS = 3000;
+
+    private final ProcessBuilder builder;
+    private final OutputArea outputArea;
+    private final AtomicLong lineSeq;
+
+    private Charset charset;
+    private BiFunction<Stream, String, String> lineFormatter;
+    private int maxPendingLines;
+    private IntConsumer onExit;
+
+    private volatile Process process;
+    private volatile boolean cancelled;
+
+    /**
+     * @param builder 进程配置,stdout和stderr会被重定向为管道
+     * @param outputArea 输出区域
+     */
+    public ProcessRunner(ProcessBuilder builder, OutputArea outputArea) {
+        this.builder = builder;
+        this.outputArea = outputArea;
+        lineSeq = new AtomicLong();
+        charset = Charset.defaultCharset();
+        lineFormatter = (stream, line) -> stream == Stream.STDERR ? "[stderr] " + line : line;
+        maxPendingLines = DEFAULT_MAX_PENDING_LINES;
+    }
+
+    /**
+     * @param charset 进程输出的字符集,默认为系统字符集
+     * @return 当前实例,支持链式调用
+     */
+    public ProcessRunner charset(Charset charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    /**
+     * @param lineFormatter 行格式化,默认给stderr的行加上"[stderr] "前缀
+     * @return 当前实例,支持链式调用
+     */
+    public ProcessRunner lineFormatter(BiFunction<Stream, String, String> lineFormatter) {
+        this.lineFormatter = lineFormatter;
+        return this;
+    }
+
+    /**
+     * @param maxPendingLines 输出区域允许积压的行数,超过时暂停读取
+     * @return 当前实例,支持链式调用
+     */
+    public ProcessRunner maxPendingLines(int maxPendingLines) {
+        this.maxPendingLines = maxPendingLines;
+        return this;
+    }
+
+    /**
+     * @param onExit 进程正常结束后的回调(在运行{@link #run()}的线程中调用),参数为退出码
+     * @return 当前实例,支持链式调用
+     */
+    public ProcessRunner onExit(IntConsumer onExit) {
+        this.onExit = onExit;
+        return this;
+    }
+
+    /**
+     * 启动进程并阻塞到进程结束、输出全部写入输出区域
+     *
+     * @return 退出码
+     * @throws IOException 进程启动失败
+     * @throws InterruptedException 被中断或取消,此时进程已被结束
+     */
+    public int run() throws IOException, InterruptedException {
+        if (cancelled) {
+            throw new InterruptedException("进程已取消");
+        }
+        Process p = builder.redirectOutput(ProcessBuilder.Redirect.PIPE)
+                .redirectError(ProcessBuilder.Redirect.PIPE)
+                .start();
+        process = p;
+        if (cancelled) {
+            // 启动过程中被取消
+            cancel();
+        }
+        p.getOutputStream().close();
+        Thread stdout = Thread.ofVirtual().name("process-stdout").start(() -> pump(p.getInputStream(), Stream.STDOUT));
+        Thread stderr = Thread.ofVirtual().name("process-stderr").start(() -> pump(p.getErrorStream(), Stream.STDERR));
+        try {
+            int exitCode = p.waitFor();
+            stdout.join();
+            stderr.join();
+            if (cancelled) {
+                throw new InterruptedException("进程已取消");
+            }
+            if (onExit != null) {
+                onExit.accept(exitCode);
+            }
+            return exitCode;
+        } catch (InterruptedException e) {
+            cancel();
+            stdout.interrupt();
+            stderr.interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * 结束进程及其子进程,可以在任意线程调用,不会阻塞
+     * <p>
+     * 先请求正常结束,{@value #DESTROY_TIMEOUT_MILLIS}毫秒后仍未退出时强制结束
+     */
+    public void cancel() {
+        cancelled = true;
+        Process p = process;
+        if (p == null || !p.isAlive()) {
+            return;
+        }
+        p.descendants().forEach(ProcessHandle::destroy);
+        p.destroy();
+        Thread.ofVirtual().name("process-destroy").start(() -> {
+            try {
+                if (!p.waitFor(DESTROY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    p.descendants().forEach(ProcessHandle::destroyForcibly);
+                    p.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                p.destroyForcibly();
+            }
+        });
+    }
+
+    /**
+     * @return 进程是否在运行
+     */
+    public boolean isRunning() {
+        Process p = process;
+        return p != null && p.isAlive();
+    }
+
+    /**
+     * @return 已输出的行数(两个流合计)
+     */
+    public long getLineCount() {
+        return lineSeq.get();
+    }
+
+    /**
+     * 在读取线程中把一个输出流解码为行并写入输出区域
+     */
+    private void pump(InputStream in, Stream stream) {
+        LineDecoder decoder = new LineDecoder(charset, line -> deliver(stream, line));
+        ByteBuffer bytes = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+        try (ReadableByteChannel channel = Channels.newChannel(in)) {
+            while (channel.read(bytes) != -1) {
+                bytes.flip();
+                decoder.decode(bytes);
+                bytes.compact();
+            }
+            bytes.flip();
+            decoder.finish(bytes);
+        } catch (IOException e) {
+            // 进程被结束时管道关闭,属于正常情况
+            if (!cancelled) {
+                log.debug("读取进程{}失败", stream, e);
+            }
+        }
+    }
+
+    private void deliver(Stream stream, String line) {
+        while (!cancelled && outputArea.getPendingLineCount() >= maxPendingLines) {
+            try {
+                Thread.sleep(BACKPRESSURE_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        String text = lineFormatter.apply(stream, line);
+        // 分配序号与写入在同一把锁内完成,保证输出区域中的顺序与序号一致
+        synchronized (lineSeq) {
+            lineSeq.incrementAndGet();
+            outputArea.appendLine(text);
+        }
+    }
+
+    /**
+     * 输出流
+     */
+    public enum Stream {
+        STDOUT,
+        STDERR
+    }
+}
@@ -0,0 +1,285 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 溢出到磁盘的历史行归档
+ * <p>
+ * 行以UTF-8编码逐行追加到临时文件(只追加不修改),
+ * 每{@value #LINES_PER_BLOCK}行记录一次块起始偏移作为稀疏索引,每行平均只占用不到1个字节的堆内存;
+ * 读取时定位到块起始位置,再向后数换行符找到目标行
+ * <p>
+ * 文件按{@value #READ_BLOCK_SIZE}字节分块读取,只缓存最近访问的{@value #MAX_READ_BLOCKS}块,内存占用有上限。
+ * 读写都通过{@link RandomAccessFile}按位置进行,不使用可中断的FileChannel:
+ * 检索、导出等线程被中断时不会关闭文件,已溢出的历史不会丢失。尚未落盘的行直接从写缓冲读取,读取不会触发写盘
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 上午11:25
+ */
+@Slf4j
+public class SpillFileArchive implements LineArchive {
+    /** 稀疏索引的块大小(行) */
+    private static final int LINES_PER_BLOCK = 64;
+    /** 读取块大小(字节) */
+    private static final int READ_BLOCK_SIZE = 64 * 1024;
+    /** 最多缓存的读取块数 */
+    private static final int MAX_READ_BLOCKS = 64;
+    /** 写缓冲大小(字节) */
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final byte[] writeBuffer;
+    /** 最近访问的读取块,key为块序号 */
+    private final Map<Long, ReadBlock> readBlocks;
+
+    /** 每块首行在文件中的偏移 */
+    private long[] blockOffsets;
+    private long lineCount;
+    /** 写缓冲中的字节数 */
+    private int writePos;
+    /** 已写入文件(不含写缓冲)的字节数 */
+    private long flushedSize;
+    /** 最近一次访问的读取块,连续读取时免去查表 */
+    private ReadBlock lastBlock;
+    /** 读取时复用的字节缓冲 */
+    private byte[] lineBytes;
+    private boolean broken;
+
+    /**
+     * @param file 溢出文件,已存在时会被清空
+     * @throws IOException 无法创建文件
+     */
+    public SpillFileArchive(File file) throws IOException {
+        this.file = file;
+        File parent = file.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        file.deleteOnExit();
+        writeBuffer = new byte[WRITE_BUFFER_SIZE];
+        readBlocks = new LinkedHashMap<>(MAX_READ_BLOCKS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ReadBlock> eldest) {
+                return size() > MAX_READ_BLOCKS;
+            }
+        };
+        blockOffsets = new long[256];
+        lineBytes = new byte[256];
+    }
+
+    /**
+     * @return 溢出文件
+     */
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void append(String line) {
+        if (broken) {
+            return;
+        }
+        try {
+            if (lineCount % LINES_PER_BLOCK == 0) {
+                int block = (int) (lineCount / LINES_PER_BLOCK);
+                if (block == blockOffsets.length) {
+                    blockOffsets = Arrays.copyOf(blockOffsets, block << 1);
+                }
+                blockOffsets[block] = flushedSize + writePos;
+            }
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            write(bytes);
+            if (writePos == writeBuffer.length) {
+                flush();
+            }
+            writeBuffer[writePos++] = '\n';
+            lineCount++;
+        } catch (IOException e) {
+            // 磁盘写满等情况下放弃归档,不影响界面继续输出
+            broken = true;
+            log.warn("输出内容写入溢出文件失败,后续历史将被丢弃: {}", file, e);
+        }
+    }
+    @Override
+    public String get(long index) {
+        if (index < 0 || index >= lineCount || broken) {
+            return null;
+        }
+        try {
+            String[] dest = new String[1];
+            readLine(lineStart(index), dest, 0);
+            return dest[0];
+        } catch (IOException e) {
+            log.warn("读取溢出文件失败: {}", file, e);
+            return null;
+        }
+    }
+
+    @Override
+    public int read(long index, String[] dest, int destPos, int length) {
+        if (index < 0 || broken) {
+            return 0;
+        }
+        int count = (int) Math.min(length, lineCount - index);
+        if (count <= 0) {
+            return 0;
+        }
+        try {
+            // 只定位一次,之后顺序解码
+            long pos = lineStart(index);
+            for (int i = 0; i < count; i++) {
+                pos = readLine(pos, dest, destPos + i);
+            }
+            return count;
+        } catch (IOException e) {
+            log.warn("读取溢出文件失败: {}", file, e);
+            return 0;
+        }
+    }
+
+    /**
+     * 定位指定行的起始位置: 从所在块的起点跳过块内前面的行
+     */
+    private long lineStart(long index) throws IOException {
+        long pos = blockOffsets[(int) (index / LINES_PER_BLOCK)];
+        for (int skip = (int) (index % LINES_PER_BLOCK); skip > 0; pos++) {
+            if (byteAt(pos) == '\n') {
+                skip--;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * 解码从指定位置开始的一行
+     *
+     * @return 下一行的起始位置
+     */
+    private long readLine(long pos, String[] dest, int destPos) throws IOException {
+        int len = 0;
+        byte b;
+        while ((b = byteAt(pos + len)) != '\n') {
+            if (len == lineBytes.length) {
+                lineBytes = Arrays.copyOf(lineBytes, len << 1);
+            }
+            lineBytes[len++] = b;
+        }
+        dest[destPos] = new String(lineBytes, 0, len, StandardCharsets.UTF_8);
+        if (lineBytes.length > WRITE_BUFFER_SIZE) {
+            // 读过超长行后不长期占用大数组
+            lineBytes = new byte[256];
+        }
+        return pos + len + 1;
+    }
+
+    @Override
+    public long size() {
+        return lineCount;
+    }
+
+    @Override
+    public void clear() {
+        readBlocks.clear();
+        lastBlock = null;
+        writePos = 0;
+        lineCount = 0;
+        blockOffsets = new long[256];
+        broken = false;
+        try {
+            raf.setLength(0);
+            flushedSize = 0;
+        } catch (IOException e) {
+            // 无法截断时从当前末尾继续追加
+            log.debug("截断溢出文件失败,继续在末尾追加: {}", file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        readBlocks.clear();
+        lastBlock = null;
+        try {
+            raf.close();
+        } catch (IOException e) {
+            log.debug("关闭溢出文件失败: {}", file, e);
+        }
+        // 删除失败时由deleteOnExit兜底
+        if (!file.delete()) {
+            log.debug("溢出文件暂时无法删除: {}", file);
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (writePos == writeBuffer.length) {
+                flush();
+            }
+            int len = Math.min(writeBuffer.length - writePos, bytes.length - offset);
+            System.arraycopy(bytes, offset, writeBuffer, writePos, len);
+            writePos += len;
+            offset += len;
+        }
+    }
+
+    /**
+     * 写缓冲落盘,只在追加时调用
+     */
+    private void flush() throws IOException {
+        raf.seek(flushedSize);
+        raf.write(writeBuffer, 0, writePos);
+        flushedSize += writePos;
+        writePos = 0;
+    }
+
+    /**
+     * 读取指定位置的字节: 已落盘的从读取块缓存中取,还在写缓冲中的直接读缓冲
+     */
+    private byte byteAt(long pos) throws IOException {
+        if (pos >= flushedSize) {
+            return writeBuffer[(int) (pos - flushedSize)];
+        }
+        ReadBlock block = lastBlock;
+        long blockIndex = pos / READ_BLOCK_SIZE;
+        if (block == null || block.index != blockIndex) {
+            block = readBlocks.get(blockIndex);
+        }
+        long blockStart = blockIndex * READ_BLOCK_SIZE;
+        if (block == null || blockStart + block.length <= pos) {
+            // 末尾块读取后文件又有增长,需要重新读取
+            block = readBlock(blockIndex, blockStart);
+            readBlocks.put(blockIndex, block);
+        }
+        lastBlock = block;
+        return block.data[(int) (pos - blockStart)];
+    }
+
+    private ReadBlock readBlock(long blockIndex, long blockStart) throws IOException {
+        int length = (int) Math.min(READ_BLOCK_SIZE, flushedSize - blockStart);
+        byte[] data = new byte[length];
+        raf.seek(blockStart);
+        raf.readFully(data);
+        return new ReadBlock(blockIndex, data, length);
+    }
+
+    /**
+     * 读取块
+     *
+     * @param index 块序号
+     * @param data 块内容
+     * @param length 有效字节数
+     */
+    private record ReadBlock(long index, byte[] data, int length) {
+    }
+}
@@ -0,0 +1,72 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+/**
+ * 一行文本的样式片段
+ * <p>
+ * 第一个片段从0开始,第i个片段从{@link #start(int)}开始,到下一个片段的起点(最后一个片段到行尾)结束,
+ * 样式为池化的{@link AnsiStyle}。创建后不可变,可以在线程间传递
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午9:10
+ */
+public final class StyleRuns {
+    private final int[] starts;
+    private final AnsiStyle[] styles;
+
+    StyleRuns(int[] starts, AnsiStyle[] styles) {
+        this.starts = starts;
+        this.styles = styles;
+    }
+
+    /**
+     * 是否与给定的片段完全相同(起点相同且样式是同一个池化实例)
+     *
+     * @param starts 片段起点
+     * @param styles 片段样式
+     * @param count 片段数
+     * @return 是否相同
+     */
+    boolean matches(int[] starts, AnsiStyle[] styles, int count) {
+        if (this.starts.length != count) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (this.starts[i] != starts[i] || this.styles[i] != styles[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 片段数
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * @param index 片段下标
+     * @return 片段在行内的起始位置
+     */
+    public int start(int index) {
+        return starts[index];
+    }
+
+    /**
+     * @param index 片段下标
+     * @param length 行长度
+     * @return 片段在行内的结束位置(不包含)
+     */
+    public int end(int index, int length) {
+        return index + 1 < starts.length ? starts[index + 1] : length;
+    }
+
+    /**
+     * @param index 片段下标
+     * @return 片段样式
+     */
+    public AnsiStyle style(int index) {
+        return styles[index];
+    }
+}
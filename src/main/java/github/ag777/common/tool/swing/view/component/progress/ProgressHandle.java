@@ -0,0 +1,266 @@
+package github.ag777.common.tool.swing.view.component.progress;
+
+import github.ag777.common.tool.swing.view.component.MyProgressBar;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程安全的进度句柄
+ * <p>
+ * 任意线程都可以高频调用{@link #increment()}/{@link #add(long)}/{@link #set(long)},
+ * 内部只是原子计数(LongAdder分段累加,多线程同时累加也不会争用),不触碰任何界面组件。
+ * 绑定到{@link MyProgressBar}后,由EDT上的定时器按固定频率采样,显示值变化时才刷新进度条
+ * <p>
+ * 采样方长时间没有看到变化时会进入空闲状态(停止定时器),此后第一次修改会通过唤醒回调重新启动采样
+ * <p>
+ * 并行任务可以用{@link #child(String, double, long)}拆分为带权重的子任务,每个工作线程只更新自己的子句柄。
+ * 有子任务的句柄不再使用自身的计数,采样时才汇总: 完成比例为各子任务比例的加权平均,
+ * 完成量和总量为各子任务之和,状态在有子任务出错时为出错、全部完成时为完成
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午11:00
+ */
+public class ProgressHandle {
+    /** 累加的部分 */
+    private final LongAdder added;
+    /** set时记录的基准,当前值为base+added */
+    private final AtomicLong base;
+    private volatile long total;
+    private volatile MyProgressBar.Status status;
+    /** 名称,根句柄可以为null */
+    private final String name;
+    /** 在父任务中的权重 */
+    private final double weight;
+    /** 子任务,创建子任务远比更新进度少,使用写时复制列表 */
+    private final List<ProgressHandle> children;
+    /** 根句柄,空闲状态和唤醒回调只记录在根句柄上 */
+    private final ProgressHandle root;
+
+    /** 采样方是否空闲 */
+    private volatile boolean idle;
+    /** 空闲时修改进度的唤醒回调 */
+    private volatile Runnable waker;
+
+    /**
+     * @param total 总量,小于等于0表示未知
+     */
+    public ProgressHandle(long total) {
+        this(null, null, 1, total);
+    }
+
+    private ProgressHandle(ProgressHandle parent, String name, double weight, long total) {
+        added = new LongAdder();
+        base = new AtomicLong();
+        this.total = total;
+        this.name = name;
+        this.weight = weight;
+        status = MyProgressBar.Status.RUNNING;
+        children = new CopyOnWriteArrayList<>();
+        root = parent == null ? this : parent.root;
+    }
+
+    /**
+     * 创建子任务,可以在任意线程调用
+     *
+     * @param name 子任务名称,用于显示各子任务的进度
+     * @param weight 在本任务中的权重,必须大于0
+     * @param total 子任务总量,小于等于0表示未知
+     * @return 子任务句柄
+     */
+    public ProgressHandle child(String name, double weight, long total) {
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException("权重必须大于0");
+        }
+        ProgressHandle child = new ProgressHandle(this, name, weight, total);
+        children.add(child);
+        wakeIfIdle();
+        return child;
+    }
+
+    /**
+     * @return 子任务列表(只读快照)
+     */
+    public List<ProgressHandle> getChildren() {
+        return List.copyOf(children);
+    }
+
+    /**
+     * @return 是否有子任务
+     */
+    public boolean hasChildren() {
+        return !children.isEmpty();
+    }
+
+    /**
+     * @return 名称,根句柄可能为null
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 在父任务中的权重
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * 完成量加1
+     */
+    public void increment() {
+        added.increment();
+        wakeIfIdle();
+    }
+
+    /**
+     * 增加完成量
+     *
+     * @param delta 增量
+     */
+    public void add(long delta) {
+        added.add(delta);
+        wakeIfIdle();
+    }
+
+    /**
+     * 直接设置完成量,与其它线程并发的{@link #add(long)}仍会累加在新值之上
+     *
+     * @param value 完成量
+     */
+    public void set(long value) {
+        base.set(value - added.sum());
+        wakeIfIdle();
+    }
+
+    /**
+     * @param total 总量,小于等于0表示未知
+     */
+    public void setTotal(long total) {
+        this.total = total;
+        wakeIfIdle();
+    }
+
+    /**
+     * 标记为已完成,完成量补齐到总量
+     */
+    public void complete() {
+        if (total > 0) {
+            set(total);
+        }
+        setStatus(MyProgressBar.Status.COMPLETE);
+    }
+
+    /**
+     * 标记为出错
+     */
+    public void fail() {
+        setStatus(MyProgressBar.Status.ERROR);
+    }
+
+    /**
+     * 设置状态
+     *
+     * @param status 状态
+     */
+    public void setStatus(MyProgressBar.Status status) {
+        this.status = status;
+        wakeIfIdle();
+    }
+
+    /**
+     * @return 完成量(各线程累加的快照,不保证与并发的修改严格一致),有子任务时为各子任务之和
+     */
+    public long getDone() {
+        if (children.isEmpty()) {
+            return base.get() + added.sum();
+        }
+        long sum = 0;
+        for (ProgressHandle child : children) {
+            sum += child.getDone();
+        }
+        return sum;
+    }
+
+    /**
+     * @return 总量,小于等于0表示未知,有子任务时为各子任务之和
+     */
+    public long getTotal() {
+        if (children.isEmpty()) {
+            return total;
+        }
+        long sum = 0;
+        for (ProgressHandle child : children) {
+            sum += Math.max(child.getTotal(), 0);
+        }
+        return sum;
+    }
+
+    /**
+     * @return 完成比例,范围0~1,总量未知时为0,有子任务时为各子任务比例的加权平均
+     */
+    public double getFraction() {
+        if (!children.isEmpty()) {
+            double weighted = 0;
+            double weights = 0;
+            for (ProgressHandle child : children) {
+                weighted += child.getFraction() * child.weight;
+                weights += child.weight;
+            }
+            return weighted / weights;
+        }
+        if (status == MyProgressBar.Status.COMPLETE) {
+            return 1;
+        }
+        long t = total;
+        if (t <= 0) {
+            return 0;
+        }
+        return Math.min(Math.max((double) getDone() / t, 0), 1);
+    }
+
+    /**
+     * @return 状态,有子任务且自身仍在运行时: 任一子任务出错为出错,全部完成为完成
+     */
+    public MyProgressBar.Status getStatus() {
+        MyProgressBar.Status s = status;
+        if (s != MyProgressBar.Status.RUNNING || children.isEmpty()) {
+            return s;
+        }
+        boolean allComplete = true;
+        for (ProgressHandle child : children) {
+            MyProgressBar.Status childStatus = child.getStatus();
+            if (childStatus == MyProgressBar.Status.ERROR) {
+                return MyProgressBar.Status.ERROR;
+            }
+            allComplete &= childStatus == MyProgressBar.Status.COMPLETE;
+        }
+        return allComplete ? MyProgressBar.Status.COMPLETE : MyProgressBar.Status.RUNNING;
+    }
+
+    /**
+     * 采样方进入或退出空闲状态,只对根句柄有效
+     *
+     * @param idle 是否空闲
+     * @param waker 空闲时被修改的回调,可以在任意线程中调用
+     */
+    public void setIdle(boolean idle, Runnable waker) {
+        this.waker = waker;
+        this.idle = idle;
+    }
+
+    private void wakeIfIdle() {
+        ProgressHandle r = root;
+        // 非空闲时只有一次volatile读,不影响高频调用
+        if (r.idle) {
+            r.idle = false;
+            Runnable w = r.waker;
+            if (w != null) {
+                w.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package github.ag777.common.tool.swing.view.component.progress;
+
+/**
+ * 速度估算
+ * <p>
+ * 对每次采样的完成量做指数加权移动平均,平滑系数按两次采样的实际间隔计算(1-e^(-间隔/时间常数)),
+ * 采样定时器停顿后恢复也不会失真。非线程安全,只应在采样线程(EDT)上使用
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/18 下午11:40
+ */
+public class RateEstimator {
+    /** 时间常数(纳秒) */
+    private final double timeConstantNanos;
+    /** 上次采样的完成量,还没有采样时为-1 */
+    private long lastValue;
+    /** 上次采样的时间(纳秒) */
+    private long lastAt;
+    /** 平滑后的速度(每秒完成量) */
+    private double rate;
+
+    /**
+     * @param timeConstantMillis 时间常数(毫秒),越大越平滑
+     */
+    public RateEstimator(long timeConstantMillis) {
+        timeConstantNanos = timeConstantMillis * 1e6;
+        lastValue = -1;
+    }
+
+    /**
+     * 记录一次采样
+     *
+     * @param value 完成量
+     * @param now 采样时间,{@link System#nanoTime()}
+     * @return 更新后的速度
+     */
+    public double update(long value, long now) {
+        if (lastValue >= 0) {
+            long elapsedNanos = now - lastAt;
+            if (elapsedNanos <= 0) {
+                return rate;
+            }
+            double instant = Math.max(value - lastValue, 0) * 1e9 / elapsedNanos;
+            double alpha = 1 - Math.exp(-elapsedNanos / timeConstantNanos);
+            rate = rate == 0 ? instant : rate + alpha * (instant - rate);
+        }
+        lastValue = value;
+        lastAt = now;
+        return rate;
+    }
+
+    /**
+     * 停滞时清零速度,保留上次采样,恢复后从下次采样重新估算
+     */
+    public void stall() {
+        rate = 0;
+    }
+
+    /**
+     * 清空所有采样
+     */
+    public void reset() {
+        lastValue = -1;
+        lastAt = 0;
+        rate = 0;
+    }
+
+    /**
+     * @return 平滑后的速度(每秒完成量),还没有估算时为0
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * 按当前速度估算剩余时间
+     *
+     * @param remaining 剩余量
+     * @return 剩余毫秒数,速度未知时为-1
+     */
+    public long eta(long remaining) {
+        if (rate <= 0) {
+            return -1;
+        }
+        return (long) (Math.max(remaining, 0) * 1000 / rate);
+    }
+}
@@ -0,0 +1,73 @@
+package github.ag777.common.tool.swing.view.component.output;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 带样式输出与普通输出的吞吐对比
+ * <p>
+ * 模拟写入线程和每帧写入的工作量: 逐行解析(普通模式直接入批),每{@value #BATCH}行写入一次{@link LineStore}并建立索引。
+ * 每行带4个SGR序列,各行只有末尾的计数不同。要求带样式的耗时不超过普通的2倍
+ * <p>
+ * 直接运行main方法,建议加-Xmx2g,结果受机器和GC影响,以后几轮的稳定值为准
+ *
+ * @author ag777 <837915770@vip.qq.com>
+ * @version 2026/10/19 上午4:20
+ */
+public class AnsiParserBenchmark {
+    private static final int LINES = 1_000_000;
+    private static final int BATCH = 20_000;
+    private static final int ROUNDS = 8;
+    /** 前几轮用于预热,不计入结果 */
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) {
+        String[] lines = new String[LINES];
+        for (int i = 0; i < LINES; i++) {
+            lines[i] = "2026-10-18 12:00:00 \u001b[32mINFO \u001b[0m [main] \u001b[36mc.e.Service\u001b[0m - processed item " + i;
+        }
+        long plainTotal = 0;
+        long styledTotal = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long plain = run(lines, false);
+            long styled = run(lines, true);
+            System.out.printf("第%d轮: 普通 %d ms, 带样式 %d ms, %.2f倍%n", round + 1, plain, styled, (double) styled / plain);
+            if (round >= WARMUP_ROUNDS) {
+                plainTotal += plain;
+                styledTotal += styled;
+            }
+        }
+        System.out.printf("平均: %.2f倍(要求不超过2倍)%n", (double) styledTotal / plainTotal);
+    }
+
+    /**
+     * @return 耗时(毫秒)
+     */
+    private static long run(String[] lines, boolean styled) {
+        AnsiParser parser = new AnsiParser();
+        LineStore store = new LineStore();
+        store.setCapacity(100_000);
+        LineIndex index = new LineIndex();
+        List<String> batch = new ArrayList<>(BATCH);
+        StyleRuns[] styles = new StyleRuns[BATCH];
+        long start = System.nanoTime();
+        for (String line : lines) {
+            if (styled) {
+                parser.parse(line, (plain, runs) -> {
+                    styles[batch.size()] = runs;
+                    batch.add(plain);
+                });
+            } else {
+                batch.add(line);
+            }
+            if (batch.size() == BATCH) {
+                long firstSeq = store.getEndSeq();
+                store.append(batch, null, styled ? styles : null);
+                index.indexLines(firstSeq, batch);
+                index.trim(store.getFirstSeq());
+                batch.clear();
+            }
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}